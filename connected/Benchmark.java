@@ -0,0 +1,273 @@
+/**
+ * $Id: Benchmark.java, v 1.0 17/10/26 11:20 oscarfabra Exp $
+ * {@code Benchmark} Is a class that measures the running time of the
+ * strongly connected components algorithms on a given or synthetic graph.
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Class that measures the running time of the strongly connected components
+ * (SCCs) algorithms on a graph read from a file or generated at random.
+ */
+public class Benchmark
+{
+    //-------------------------------------------------------------------------
+    // CONSTANTS
+    //-------------------------------------------------------------------------
+
+    // Number of times each measure is repeated, the best time is reported
+    private static final int RUNS = 3;
+
+    // Number of batches of edges added when measuring incremental updates
+    private static final int BATCHES = 10;
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Measures the parallel SCCs algorithm with each of the given numbers of
+     * threads and prints the best time of each one in standard output.
+     * @param graph Graph to examine.
+     * @param threads Numbers of threads to measure.
+     */
+    private static void measureParallel(Graph graph, int [] threads)
+    {
+        graph.buildReverseAdjacencies();
+        long base = 0;
+        for(int parallelism : threads)
+        {
+            long best = Long.MAX_VALUE;
+            int sccs = 0;
+            for(int run = 0; run < RUNS; run++)
+            {
+                long start = System.nanoTime();
+                int [] leaders = ParallelConnected.findLeaders(graph,
+                        parallelism);
+                best = Math.min(best, System.nanoTime() - start);
+                sccs = Benchmark.countLeaders(leaders);
+            }
+            if(base == 0) { base = best; }
+            System.out.printf("parallel, %2d threads: %8.1f ms, speedup " +
+                    "%5.2f, %d SCCs%n", parallelism, best / 1e6,
+                    (double) base / best, sccs);
+        }
+    }
+
+    /**
+     * Takes BATCHES batches of the given size of random edges out of the
+     * given graph, then adds them back one batch at a time and measures how
+     * long it takes to update the SCCs incrementally versus finding them all
+     * again on the whole graph. Prints both times for each batch in standard
+     * output.
+     * @param graph Graph to examine.
+     * @param batchSize Number of edges of each batch.
+     */
+    private static void measureIncremental(Graph graph, int batchSize)
+    {
+        // Gets the edges of the graph in random order
+        int n = graph.getN();
+        int m = graph.getM();
+        int [] tails = new int[m];
+        int [] heads = new int[m];
+        for(int v = 1, i = 0; v <= n; v++)
+        {
+            for(int j = graph.getHeadsStart(v); j < graph.getHeadsEnd(v); j++)
+            {
+                tails[i] = v;
+                heads[i++] = graph.getHead(j);
+            }
+        }
+        Random random = new Random(1);
+        for(int i = m - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            int aux = tails[i];
+            tails[i] = tails[j];
+            tails[j] = aux;
+            aux = heads[i];
+            heads[i] = heads[j];
+            heads[j] = aux;
+        }
+
+        // Builds the structure without the last batches
+        int base = Math.max(0, m - BATCHES * batchSize);
+        long start = System.nanoTime();
+        IncrementalConnected incremental = new IncrementalConnected(
+                new Graph(n, base, tails, heads));
+        System.out.printf("initial SCCs: %8.1f ms, %d SCCs%n",
+                (System.nanoTime() - start) / 1e6, incremental.getCount());
+
+        for(int from = base; from < m; from += batchSize)
+        {
+            int to = Math.min(m, from + batchSize);
+            start = System.nanoTime();
+            incremental.addEdges(Arrays.copyOfRange(tails, from, to),
+                    Arrays.copyOfRange(heads, from, to));
+            long update = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Components components = Connected.findComponents(
+                    new Graph(n, to, tails, heads), Connected.TARJAN);
+            long rerun = System.nanoTime() - start;
+            if(components.getCount() != incremental.getCount())
+            {
+                throw new IllegalStateException("Incremental SCCs differ " +
+                        "from the ones found again.");
+            }
+            System.out.printf("batch of %d edges: update %8.3f ms, full " +
+                    "rerun %8.1f ms, %d SCCs%n", to - from, update / 1e6,
+                    rerun / 1e6, incremental.getCount());
+        }
+    }
+
+    /**
+     * Counts the different SCCs in the given array of leaders.
+     * @param leaders Leader of the SCC of each vertex.
+     * @return Number of different SCCs.
+     */
+    private static int countLeaders(int [] leaders)
+    {
+        int count = 0;
+        for(int v = 1; v < leaders.length; v++)
+        {
+            if(leaders[v] == v) { count++; }
+        }
+        return count;
+    }
+
+    /**
+     * Generates a random graph whose SCCs are clusters of vertices with
+     * power-law sizes. Each cluster is a cycle plus random inner edges, and
+     * the edges between clusters only go from lower to higher clusters, so
+     * they don't merge clusters.
+     * @param n Number of vertices of the graph.
+     * @param seed Seed for the random generator.
+     * @return Generated graph.
+     */
+    static Graph generateGraph(int n, long seed)
+    {
+        Random random = new Random(seed);
+
+        // Shuffles the vertex ids and cuts them into clusters
+        int [] vertices = new int[n];
+        for(int i = 0; i < n; i++) { vertices[i] = i + 1; }
+        for(int i = n - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            int aux = vertices[i];
+            vertices[i] = vertices[j];
+            vertices[j] = aux;
+        }
+        int [] clusterStart = new int[n + 1];
+        int clusters = 0;
+        for(int i = 0; i < n; clusters++)
+        {
+            clusterStart[clusters] = i;
+            int size = (int) Math.pow(1 - random.nextDouble(), -1 / 1.2);
+            i = Math.min(n, i + size);
+        }
+        clusterStart[clusters] = n;
+
+        // Adds the edges of each cluster and the edges between clusters
+        int m = 0;
+        int [] tails = new int[5 * n];
+        int [] heads = new int[5 * n];
+        for(int c = 0; c < clusters; c++)
+        {
+            int from = clusterStart[c];
+            int size = clusterStart[c + 1] - from;
+            if(size == 1) { continue; }
+            for(int i = 0; i < size; i++)
+            {
+                tails[m] = vertices[from + i];
+                heads[m++] = vertices[from + (i + 1) % size];
+                tails[m] = vertices[from + random.nextInt(size)];
+                heads[m++] = vertices[from + random.nextInt(size)];
+            }
+        }
+        while(m < tails.length)
+        {
+            int a = random.nextInt(clusters);
+            int b = random.nextInt(clusters);
+            if(a == b) { continue; }
+            int from = Math.min(a, b);
+            int to = Math.max(a, b);
+            tails[m] = vertices[clusterStart[from] + random.nextInt(
+                    clusterStart[from + 1] - clusterStart[from])];
+            heads[m++] = vertices[clusterStart[to] + random.nextInt(
+                    clusterStart[to + 1] - clusterStart[to])];
+        }
+        return new Graph(n, m, tails, heads);
+    }
+
+    //-------------------------------------------------------------------------
+    // MAIN
+    //-------------------------------------------------------------------------
+
+    /**
+     * Main benchmark method.
+     * @param args -file=filepath with a directed graph, or -synthetic=n to
+     *             generate a graph with n vertices and 5n edges
+     *             Optionally -threads=1,2,4 with the numbers of threads,
+     *             or -incremental=batch to measure incremental updates
+     *             with batches of that many edges
+     * @throws IOException If the given file couldn't be read.
+     */
+    public static void main(String [] args) throws IOException
+    {
+        Graph graph = null;
+        int [] threads = {1, 2, 4, 8, 16, 32};
+        int batchSize = 0;
+        for(String arg : args)
+        {
+            if(arg.startsWith("-file="))
+            {
+                String filename = arg.substring(6);
+                graph = GraphFile.isGraphFile(filename) ?
+                        GraphFile.read(filename) :
+                        EdgeListReader.read(filename);
+            }
+            else if(arg.startsWith("-synthetic="))
+            {
+                graph = Benchmark.generateGraph(
+                        Integer.parseInt(arg.substring(11)), 1);
+            }
+            else if(arg.startsWith("-incremental="))
+            {
+                batchSize = Integer.parseInt(arg.substring(13));
+            }
+            else if(arg.startsWith("-threads="))
+            {
+                String [] values = arg.substring(9).split(",");
+                threads = new int[values.length];
+                for(int i = 0; i < values.length; i++)
+                {
+                    threads[i] = Integer.parseInt(values[i]);
+                }
+            }
+        }
+        if(graph == null)
+        {
+            System.out.println("Usage: Benchmark -file=filepath | " +
+                    "-synthetic=n [-threads=1,2,4 | -incremental=batch]");
+            return;
+        }
+        System.out.println("n = " + graph.getN() + ", m = " + graph.getM());
+        if(batchSize > 0)
+        {
+            Benchmark.measureIncremental(graph, batchSize);
+        }
+        else
+        {
+            Benchmark.measureParallel(graph, threads);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * $Id: Components.java, v 1.0 17/10/26 14:00 oscarfabra Exp $
+ * {@code Components} Represents the strongly connected components of a
+ * directed graph as one component id per vertex. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the strongly connected components (SCCs) of a directed graph
+ * with n vertices. Stores one int per vertex with the id of its SCC and one
+ * int per SCC with its size; the lists of vertices of an SCC are only built
+ * when asked for, and only for the largest ones.
+ * @see Connected
+ */
+public class Components
+{
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Number of SCCs, component ids are in [0...count-1]
+    private int count;
+
+    // Id of the SCC of each vertex, size n + 1
+    private int [] components;
+
+    // Number of vertices in each SCC, size count
+    private int [] sizes;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Creates a new set of SCCs from the given arrays, which are used without
+     * copying them.
+     * <b>Pre: </b>components[v] is in [0...count-1] for each vertex v in
+     * [1...n], and sizes[c] is the number of vertices with component c.
+     * @param count Number of SCCs.
+     * @param components Id of the SCC of each vertex, size n + 1.
+     * @param sizes Number of vertices in each SCC, size count.
+     */
+    public Components(int count, int [] components, int [] sizes)
+    {
+        this.count = count;
+        this.components = components;
+        this.sizes = sizes;
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Gets the number of SCCs.
+     * @return Number of SCCs.
+     */
+    public int getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Gets the id of the SCC of the vertex with the given id.
+     * @param vId Id of the vertex to look for, vId in [1...n].
+     * @return Id of the SCC of the given vertex, in [0...count-1].
+     */
+    public int getComponent(int vId)
+    {
+        return this.components[vId];
+    }
+
+    /**
+     * Gets the number of vertices of the SCC with the given id.
+     * @param component Id of the SCC to look for, in [0...count-1].
+     * @return Number of vertices of the given SCC.
+     */
+    public int getSize(int component)
+    {
+        return this.sizes[component];
+    }
+
+    /**
+     * Gets the sizes of the k largest SCCs in decreasing order. If there are
+     * less than k SCCs the remaining positions are 0.
+     * @param k Number of sizes to get, k >= 0.
+     * @return Sizes of the k largest SCCs in decreasing order.
+     */
+    public int [] getLargestSizes(int k)
+    {
+        int [] largest = this.findLargest(k);
+        int [] largestSizes = new int[k];
+        for(int i = 0; i < largest.length; i++)
+        {
+            largestSizes[i] = this.sizes[largest[i]];
+        }
+        return largestSizes;
+    }
+
+    /**
+     * Gets the ids of the vertices of the k largest SCCs, in decreasing
+     * order of size. Only the lists of these SCCs are built.
+     * @param k Number of SCCs to get, k >= 0.
+     * @return List with a list of the ids of the vertices of each of the k
+     *         largest SCCs, shorter than k if there are less than k SCCs.
+     */
+    public List<List<Integer>> getLargestMembers(int k)
+    {
+        int [] largest = this.findLargest(k);
+
+        // Maps each of the largest SCCs to its position in the list
+        int [] positions = new int[this.count];
+        List<List<Integer>> members =
+                new ArrayList<List<Integer>>(largest.length);
+        for(int i = 0; i < largest.length; i++)
+        {
+            positions[largest[i]] = i + 1;
+            members.add(new ArrayList<Integer>(this.sizes[largest[i]]));
+        }
+        for(int v = 1; v < this.components.length; v++)
+        {
+            int position = positions[this.components[v]];
+            if(position > 0)
+            {
+                members.get(position - 1).add(v);
+            }
+        }
+        return members;
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Finds the ids of the k largest SCCs keeping a binary min-heap of at
+     * most k SCCs keyed by size, so it takes O(count log k) time and O(k)
+     * space.
+     * @param k Number of SCCs to find, k >= 0.
+     * @return Ids of the min(k, count) largest SCCs in decreasing order of
+     *         size.
+     */
+    private int [] findLargest(int k)
+    {
+        int [] heap = new int[Math.min(k, this.count)];
+        int size = 0;
+        for(int c = 0; c < this.count; c++)
+        {
+            if(size < heap.length)
+            {
+                // Sifts the new SCC up from the last position
+                int i = size++;
+                while(i > 0 && this.sizes[c] < this.sizes[heap[(i - 1) / 2]])
+                {
+                    heap[i] = heap[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                heap[i] = c;
+            }
+            else if(size > 0 && this.sizes[c] > this.sizes[heap[0]])
+            {
+                // Replaces the smallest of the heap and sifts it down
+                this.siftDown(heap, size, c);
+            }
+        }
+
+        // Pops the smallest SCC into the last free position until it's empty
+        while(size > 1)
+        {
+            int c = heap[--size];
+            heap[size] = heap[0];
+            this.siftDown(heap, size, c);
+        }
+        return heap;
+    }
+
+    /**
+     * Places the given SCC at the root of the given min-heap and sifts it
+     * down to its position.
+     * @param heap Min-heap of SCC ids keyed by size.
+     * @param size Number of SCCs in the heap.
+     * @param c Id of the SCC to place.
+     */
+    private void siftDown(int [] heap, int size, int c)
+    {
+        int i = 0;
+        while(2 * i + 1 < size)
+        {
+            int child = 2 * i + 1;
+            if(child + 1 < size &&
+                    this.sizes[heap[child + 1]] < this.sizes[heap[child]])
+            {
+                child++;
+            }
+            if(this.sizes[heap[child]] >= this.sizes[c])
+            {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = c;
+    }
+}
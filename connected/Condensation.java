@@ -0,0 +1,236 @@
+/**
+ * $Id: Condensation.java, v 1.0 17/10/26 14:40 oscarfabra Exp $
+ * {@code Condensation} Represents the directed acyclic graph of the strongly
+ * connected components of a directed graph. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.util.Arrays;
+
+/**
+ * Represents the condensation of a directed graph: a directed acyclic graph
+ * (DAG) with a vertex for each strongly connected component (SCC) and an edge
+ * from SCC c to SCC d if any edge of the graph goes from a vertex of c to a
+ * vertex of d, c != d. Parallel edges are merged into one. Edges are stored
+ * in CSR form like in Graph, but component ids are in [0...count-1]. It's
+ * built in O(n + m) time together with a topological order of the SCCs.
+ * @see Components
+ * @see Graph
+ */
+public class Condensation
+{
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // SCCs of the condensed graph, i.e. the vertices of this DAG
+    private Components components;
+
+    // Number of edges between different SCCs, without duplicates
+    private int m;
+
+    // Offsets in heads of the edges leaving each SCC, size count + 1
+    private int [] headsStart;
+
+    // Head SCCs of the edges leaving each SCC, grouped by tail
+    private int [] heads;
+
+    // SCCs in topological order, every edge goes from an SCC to a later one
+    private int [] order;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Creates the condensation of the given graph from the given SCCs.
+     * <b>Pre: </b>components are the SCCs of graph.
+     * @param graph Graph to condense.
+     * @param components SCCs of the graph.
+     */
+    public Condensation(Graph graph, Components components)
+    {
+        this.components = components;
+        int n = graph.getN();
+        int count = components.getCount();
+
+        // Groups the vertices by SCC with a counting sort
+        int [] verticesStart = new int[count + 1];
+        for(int v = 1; v <= n; v++)
+        {
+            verticesStart[components.getComponent(v) + 1]++;
+        }
+        for(int c = 1; c <= count; c++)
+        {
+            verticesStart[c] += verticesStart[c - 1];
+        }
+        int [] vertices = new int[n];
+        int [] next = Arrays.copyOf(verticesStart, count);
+        for(int v = 1; v <= n; v++)
+        {
+            vertices[next[components.getComponent(v)]++] = v;
+        }
+
+        // Walks through the edges of each SCC at once, so the last SCC that
+        // added an edge to each head tells whether it's a duplicate
+        this.headsStart = new int[count + 1];
+        this.heads = new int[Math.min(graph.getM(), 16)];
+        int [] lastTail = next;
+        Arrays.fill(lastTail, -1);
+        for(int c = 0; c < count; c++)
+        {
+            this.headsStart[c] = this.m;
+            for(int j = verticesStart[c]; j < verticesStart[c + 1]; j++)
+            {
+                int v = vertices[j];
+                for(int i = graph.getHeadsStart(v); i < graph.getHeadsEnd(v);
+                    i++)
+                {
+                    int d = components.getComponent(graph.getHead(i));
+                    if(d != c && lastTail[d] != c)
+                    {
+                        lastTail[d] = c;
+                        this.addHead(d);
+                    }
+                }
+            }
+        }
+        this.headsStart[count] = this.m;
+        this.heads = Arrays.copyOf(this.heads, this.m);
+
+        this.order = this.sortTopologically();
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Gets the SCCs condensed in this DAG.
+     * @return SCCs of the condensed graph.
+     */
+    public Components getComponents()
+    {
+        return this.components;
+    }
+
+    /**
+     * Gets the number of vertices of this DAG, i.e. the number of SCCs.
+     * @return Number of SCCs.
+     */
+    public int getN()
+    {
+        return this.components.getCount();
+    }
+
+    /**
+     * Gets the number of edges of this DAG.
+     * @return Number of edges between different SCCs, without duplicates.
+     */
+    public int getM()
+    {
+        return this.m;
+    }
+
+    /**
+     * Gets the position in the heads array of the first edge leaving the
+     * SCC with the given id.
+     * @param component Id of the SCC to look for, in [0...count-1].
+     * @return Position of the first head SCC of the given SCC.
+     */
+    public int getHeadsStart(int component)
+    {
+        return this.headsStart[component];
+    }
+
+    /**
+     * Gets the position in the heads array right after the last edge leaving
+     * the SCC with the given id.
+     * @param component Id of the SCC to look for, in [0...count-1].
+     * @return Position after the last head SCC of the given SCC.
+     */
+    public int getHeadsEnd(int component)
+    {
+        return this.headsStart[component + 1];
+    }
+
+    /**
+     * Gets the head SCC stored at the given position of the heads array.
+     * @param index Position in the heads array, index in [0...m-1].
+     * @return Id of the head SCC at the given position.
+     */
+    public int getHead(int index)
+    {
+        return this.heads[index];
+    }
+
+    /**
+     * Gets the SCCs in topological order: every edge of this DAG goes from
+     * an SCC to one that comes later in the order.
+     * @return Array with the ids of all SCCs in topological order.
+     */
+    public int [] getTopologicalOrder()
+    {
+        return this.order;
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Appends the given head SCC to the heads array, growing it if needed.
+     * @param component Id of the head SCC.
+     */
+    private void addHead(int component)
+    {
+        if(this.m == this.heads.length)
+        {
+            this.heads = Arrays.copyOf(this.heads, 2 * this.heads.length);
+        }
+        this.heads[this.m++] = component;
+    }
+
+    /**
+     * Sorts the SCCs topologically with Kahn's algorithm: repeatedly takes
+     * an SCC with no incoming edges left and removes its outgoing edges.
+     * @return Array with the ids of all SCCs in topological order.
+     */
+    private int [] sortTopologically()
+    {
+        int count = this.components.getCount();
+
+        // Counts the incoming edges of each SCC
+        int [] inDegrees = new int[count];
+        for(int i = 0; i < this.m; i++)
+        {
+            inDegrees[this.heads[i]]++;
+        }
+
+        // Uses the order array itself as queue of SCCs with no incoming edges
+        int [] order = new int[count];
+        int tail = 0;
+        for(int c = 0; c < count; c++)
+        {
+            if(inDegrees[c] == 0)
+            {
+                order[tail++] = c;
+            }
+        }
+        for(int head = 0; head < tail; head++)
+        {
+            int c = order[head];
+            for(int i = this.headsStart[c]; i < this.headsStart[c + 1]; i++)
+            {
+                if(--inDegrees[this.heads[i]] == 0)
+                {
+                    order[tail++] = this.heads[i];
+                }
+            }
+        }
+        return order;
+    }
+}
@@ -4,23 +4,38 @@
  * components of any given graph. <br/>
  *
  * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
- * @version 1.0
+ * @version 1.2
  * @since 13/06/2014
  */
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
- * Class that finds the strongly connected components (SCCs) of a given graph.
+ * Class that finds the strongly connected components (SCCs) of a given graph,
+ * either with Kosaraju's two-pass algorithm or with Tarjan's single-pass one.
+ * Every engine labels each vertex with the id of its SCC, so only one int per
+ * vertex and one per SCC are kept.
  * @see Graph
- * @see Edge
- * @see Vertex
+ * @see Components
  */
 public class Connected
 {
+    //-------------------------------------------------------------------------
+    // CONSTANTS
+    //-------------------------------------------------------------------------
+
+    // Engine that runs Kosaraju's two-pass algorithm, walking edges forwards
+    // and backwards
+    public static final int KOSARAJU = 0;
+
+    // Engine that runs Tarjan's single-pass algorithm, walking edges only
+    // forwards
+    public static final int TARJAN = 1;
+
+    // Engine that runs the forward-backward algorithm on all available cores
+    // @see ParallelConnected
+    public static final int PARALLEL = 2;
+
     //-------------------------------------------------------------------------
     // CLASS ATTRIBUTES
     //-------------------------------------------------------------------------
@@ -29,21 +44,43 @@ public class Connected
     // search (DFS)
     private static int t = 0;
 
-    // Vertex used to know the leaders in the second pass of the depth-first
-    // search (DFS)
-    private static int s = 0;
+    // Counters of the work done and timings of each phase, no I/O is done
+    // while finding SCCs
+    private static Progress progress = new Progress();
+
+    // Number of strongly-connected components (SCCs) found so far, which is
+    // also the id of the next SCC to be found
+    private static int count = 0;
+
+    // Id of the SCC of each vertex, size n + 1
+    private static int [] components;
 
-    // Map to store the strongly-connected components (SCCs) as they are being
-    // found. Keys are leader vertices. Values are lists of the ids of the
-    // comprising vertices.
-    private static Map<Integer, List<Integer>> sccs;
+    // Number of vertices of each SCC found so far, grown as needed
+    private static int [] sizes;
 
-    // Auxiliary list used to store each of the SCCs that are being found to
-    // store it in the sccs map above
-    private static List<Integer> scc;
+    // Explicit depth-first search (DFS) stack with the ids of the vertices
+    // in the current path, used instead of recursion
+    private static int [] stack;
 
-    // Stores the sizes of the 5 largest SCCs.
-    private static int [] largestSccs;
+    // Edge cursor of each frame in stack, i.e. the position of the next
+    // adjacency to examine for the corresponding vertex
+    private static int [] cursors;
+
+    // Counter used for discovery indexes in Tarjan's algorithm
+    private static int index = 0;
+
+    // Discovery index of each vertex in Tarjan's algorithm, 0 if unvisited
+    private static int [] indexes;
+
+    // Smallest discovery index reachable from each vertex through its DFS
+    // subtree and at most one back edge, used in Tarjan's algorithm. It's
+    // negated once the vertex has been assigned to an SCC
+    private static int [] lowLinks;
+
+    // Stack of visited vertices not yet assigned to an SCC in Tarjan's
+    // algorithm, and the number of vertices in it
+    private static int [] sccStack;
+    private static int sccStackSize = 0;
 
     //-------------------------------------------------------------------------
     // CONSTRUCTOR
@@ -57,23 +94,103 @@ public class Connected
 
     /**
      * Finds the five largest strongly connected components (SCCs) of given
-     * graph and returns their sizes in decreasing order.
+     * graph and returns their sizes in decreasing order, using Kosaraju's
+     * two-pass algorithm.
      * @param graph Graph to examine.
      * @return Size of the largest 5 SCCs of the graph in decreasing order.
      */
     public static int [] findLargestSccs(Graph graph)
     {
-        // Initializes array
-        Connected.largestSccs = new int[5];
+        return Connected.findLargestSccs(graph, Connected.KOSARAJU);
+    }
+
+    /**
+     * Finds the five largest strongly connected components (SCCs) of given
+     * graph and returns their sizes in decreasing order, using the given
+     * engine.
+     * @param graph Graph to examine.
+     * @param engine Connected.KOSARAJU, Connected.TARJAN or
+     *               Connected.PARALLEL.
+     * @return Size of the largest 5 SCCs of the graph in decreasing order.
+     */
+    public static int [] findLargestSccs(Graph graph, int engine)
+    {
+        return Connected.findLargestSccs(graph, engine, 5);
+    }
+
+    /**
+     * Finds the k largest strongly connected components (SCCs) of given graph
+     * and returns their sizes in decreasing order, using the given engine.
+     * @param graph Graph to examine.
+     * @param engine Connected.KOSARAJU, Connected.TARJAN or
+     *               Connected.PARALLEL.
+     * @param k Number of SCCs to report, k >= 0.
+     * @return Size of the largest k SCCs of the graph in decreasing order, 0
+     *         in the positions beyond the number of SCCs.
+     */
+    public static int [] findLargestSccs(Graph graph, int engine, int k)
+    {
+        return Connected.findComponents(graph, engine).getLargestSizes(k);
+    }
+
+    /**
+     * Gets the counters of the work done and the timings of each phase of
+     * the algorithms, which add up across calls until they're reset.
+     * @return Progress of the algorithms.
+     */
+    public static Progress getProgress()
+    {
+        return Connected.progress;
+    }
+
+    /**
+     * Sets the counters of the work done and the timings of each phase of
+     * the algorithms.
+     * @param progress Progress to update from now on.
+     */
+    public static void setProgress(Progress progress)
+    {
+        Connected.progress = progress;
+    }
 
-        // Finds all SCCs of the given graph and returns a list with the ids of
-        // each of the vertices that comprise them.
-        System.out.println("Finding all SCCs...");
-        findAllSccs(graph);
-        System.out.println("...all SCCs found.");
+    /**
+     * Finds all the strongly connected components (SCCs) of given graph using
+     * the given engine. The result holds one SCC id per vertex and one size
+     * per SCC; the vertices of the largest SCCs can be listed from it.
+     * @param graph Graph to examine.
+     * @param engine Connected.KOSARAJU, Connected.TARJAN or
+     *               Connected.PARALLEL.
+     * @return SCCs of the given graph.
+     */
+    public static Components findComponents(Graph graph, int engine)
+    {
+        // Initializes the SCC id of each vertex and the size of each SCC
+        Connected.count = 0;
+        Connected.components = new int[graph.getN() + 1];
+        Connected.sizes = new int[16];
 
-        // Returns the size of the 5 largest SCCs.
-        return Connected.largestSccs;
+        // Finds all SCCs of the given graph labeling each vertex with the id
+        // of its SCC
+        if(engine == Connected.TARJAN)
+        {
+            findAllSccsSinglePass(graph);
+        }
+        else if(engine == Connected.PARALLEL)
+        {
+            findAllSccsInParallel(graph);
+        }
+        else
+        {
+            findAllSccs(graph);
+        }
+        Connected.progress.endPhase();
+
+        Components components = new Components(Connected.count,
+                Connected.components,
+                Arrays.copyOf(Connected.sizes, Connected.count));
+        Connected.components = null;
+        Connected.sizes = null;
+        return components;
     }
 
     //-------------------------------------------------------------------------
@@ -84,31 +201,27 @@ public class Connected
      * Finds all the strongly connected components (SCCs) of the given graph
      * using Kosaraju's two-pass algorithm.
      * @param graph Graph to examine.
-     * @return Array of lists of integers with the ids of the vertices that
-     * comprise each of the SCCs found.
      */
-    private static Map<Integer, List<Integer>> findAllSccs(Graph graph)
+    private static void findAllSccs(Graph graph)
     {
+        // Initializes the DFS stack, each vertex is in it at most once
+        Connected.stack = new int[graph.getN() + 1];
+        Connected.cursors = new int[graph.getN() + 1];
+
+        // The first pass walks edges backwards
+        Connected.progress.beginPhase("reverse adjacencies");
+        graph.buildReverseAdjacencies();
+
         // Computes and sets the finishing times for each of the vertices in
         // the given graph using the reversed graph
-        System.out.println("-- Computing magical ordering...");
+        Connected.progress.beginPhase("magical ordering");
         setMagicalOrdering(graph);
-        System.out.println("-- ...finished computing magical ordering.");
-
-        System.out.print("Updating vertices to unexplored...");
-        for (int i= 1; i <= graph.getN(); i++)  // Assumes id's from 1 to n
-        {
-            graph.setVertexAsUnexplored(i);
-        }
-        System.out.println("done.");
+        graph.setAllVerticesAsUnexplored();
 
         // Gets the SCCs one by one processing vertices in decreasing order of
         // finishing times
-        System.out.println("-- Discovering SCCs...");
-        Map<Integer, List<Integer>> sccs = discoverSccs(graph);
-        System.out.println("-- ...finished discovering SCCs.");
-
-        return sccs;
+        Connected.progress.beginPhase("discovering SCCs");
+        discoverSccs(graph);
     }
 
     /**
@@ -122,136 +235,294 @@ public class Connected
         Connected.t = 0;
 
         // Gets the finishing times for each vertex of graphRev
-        System.out.println("---- Getting finishing times for each vertex in " +
-                "graphRev...");
         for(int i = graph.getN(); i > 0; i--)
         {
-            Vertex vertex = graph.getVertex(i);
-            if(vertex != null && !vertex.isExplored())
+            if(!graph.isExplored(i))
             {
                 DFSForFinishingTimes(graph, i);
             }
-            // Shows a message, for logging purposes
-            if((graph.getN() - i + 1) % 20000 == 0)
-            {
-                System.out.println("------ "+ (graph.getN() - i + 1) +
-                        " finishing times setup.");
-            }
         }
-        System.out.println("---- ...finished getting times for vertices.");
     }
 
     /**
      * Gets the strongly connected components (SCCs) one-by-one processing
      * vertices in decreasing order of finishing times.
      * @param graph Graph to examine.
-     * @return Array of lists with the ids of the vertices that comprise each
-     * of the SCCs found.
      */
-    private static Map<Integer, List<Integer>> discoverSccs(Graph graph)
+    private static void discoverSccs(Graph graph)
     {
-        // HashMap to add each of the SCCs. Keys corresponds to leader
-        // vertices, values are the lists of ids of the comprising vertices.
-        Connected.sccs = new HashMap<Integer, List<Integer>>();
-
         // Gets the finishing times for each vertex of graph
         for(int t = graph.getN(); t > 0; t--)
         {
             // Gets the vertex by its finishing time
-            int vertexId = -1;
-            Vertex vertex = graph.getVertexByFinishingTime(t);
-            if(vertex != null)
-            {
-                vertexId = vertex.getId();
-            }
+            int vertexId = graph.getVertexByFinishingTime(t);
 
-            if(!vertex.isExplored())
+            if(vertexId != 0 && !graph.isExplored(vertexId))
             {
-                // Initializes the scc that is about to be built
-                Connected.scc = new LinkedList<Integer>();
-
-                // Sets current vertex id as the leader vertex
-                Connected.s = vertexId;
-
-                // Finds each of the SCCs adding the corresponding vertices
-                // to list Connected.scc
+                // Finds the SCC led by the current vertex labeling each of
+                // its vertices with the id of the new SCC
+                Connected.addScc();
                 DFSForFindingLeaders(graph, vertexId);
+            }
+        }
+    }
 
-                // Adds scc and updates largestSccs array
-                Connected.sccs.put(Connected.s, Connected.scc);
-                int size = Connected.scc.size();
-                int i = 0;
-                while(i < 5 && size < Connected.largestSccs[i]) { i++; }
-                if(i < 5)
-                {
-                    for (int j = 4; j > i; j-- )
-                    {
-                        Connected.largestSccs[j] = Connected.largestSccs[j - 1];
-                    }
-                    Connected.largestSccs[i] = size;
-                }
+    /**
+     * Finds all the strongly connected components (SCCs) of the given graph
+     * using Tarjan's single-pass algorithm. Only walks edges forwards, so the
+     * reverse adjacencies of the graph are never built.
+     * @param graph Graph to examine.
+     */
+    private static void findAllSccsSinglePass(Graph graph)
+    {
+        // Initializes the DFS stack, the stack of vertices not yet assigned
+        // to an SCC, and the discovery indexes and low links of each vertex
+        int n = graph.getN();
+        Connected.stack = new int[n + 1];
+        Connected.cursors = new int[n + 1];
+        Connected.sccStack = new int[n + 1];
+        Connected.sccStackSize = 0;
+        Connected.indexes = new int[n + 1];
+        Connected.lowLinks = new int[n + 1];
+        Connected.index = 0;
 
-                // Shows a message in standard output for logging purposes
-                System.out.print("---- "+ Connected.sccs.size());
-                System.out.println((Connected.sccs.size() > 1)? " SCCs found.":
-                        " SCC found.");
+        // Starts a DFS at each vertex not visited yet
+        Connected.progress.beginPhase("discovering SCCs");
+        for(int i = 1; i <= n; i++)
+        {
+            if(Connected.indexes[i] == 0)
+            {
+                DFSForTarjan(graph, i);
             }
-            // Shows a message for logging purposes
-            if((graph.getN() - t + 1) % 100 == 0)
+        }
+    }
+
+    /**
+     * Finds all the strongly connected components (SCCs) of the given graph
+     * on all available cores using the forward-backward algorithm.
+     * @param graph Graph to examine.
+     */
+    private static void findAllSccsInParallel(Graph graph)
+    {
+        Connected.progress.beginPhase("discovering SCCs in parallel");
+        int [] leaders = ParallelConnected.findLeaders(graph,
+                Runtime.getRuntime().availableProcessors());
+        Connected.progress.beginPhase("labeling SCCs");
+
+        // Numbers the leaders, then labels each vertex with the number of
+        // its leader
+        int n = graph.getN();
+        for(int i = 1; i <= n; i++)
+        {
+            if(leaders[i] == i)
             {
-                System.out.println("---- ["+ (graph.getN() - t + 1) +
-                        " vertices covered so far.]");
+                Connected.components[i] = Connected.addScc();
             }
         }
+        for(int i = 1; i <= n; i++)
+        {
+            int component = Connected.components[leaders[i]];
+            Connected.components[i] = component;
+            Connected.sizes[component]++;
+        }
+    }
 
-        // Returns the constructed HashMap of SCCs
-        return Connected.sccs;
+    /**
+     * Starts a new SCC, growing the sizes array if needed.
+     * @return Id of the new SCC.
+     */
+    private static int addScc()
+    {
+        if(Connected.count == Connected.sizes.length)
+        {
+            Connected.sizes = Arrays.copyOf(Connected.sizes,
+                    2 * Connected.sizes.length);
+        }
+        Connected.sizes[Connected.count] = 0;
+        Connected.progress.addScc();
+        return Connected.count++;
     }
 
     /**
      * Runs depth-first search (DFS) backwards (crossing edges from head to
      * tail) on the given graph to set finishing times for its vertices. It's
-     * run backwards to simulate a reverse version of given graph.
+     * run backwards to simulate a reverse version of given graph. Uses an
+     * explicit stack so the thread stack doesn't grow with the graph.
      * @param graph Graph to examine as if it were reversed.
-     * @param vId Id of the vertex to start running DFS at.
+     * @param sId Id of the vertex to start running DFS at.
      */
-    private static void DFSForFinishingTimes(Graph graph, int vId)
+    private static void DFSForFinishingTimes(Graph graph, int sId)
     {
-        // Sets the current vertex as explored
-        graph.setVertexAsExplored(vId);
-        // Walks through the adjacent vertices using depth-first search
-        for(Vertex adjVertex : graph.getTailVertices(vId))
+        int [] stack = Connected.stack;
+        int [] cursors = Connected.cursors;
+
+        // Sets the starting vertex as explored and pushes it
+        graph.setVertexAsExplored(sId);
+        int top = 0;
+        stack[top] = sId;
+        cursors[top] = graph.getTailsStart(sId);
+        while(top >= 0)
         {
-            if(adjVertex != null && !adjVertex.isExplored())
+            // Advances the cursor of the vertex on top up to its next
+            // unexplored tail vertex
+            int vId = stack[top];
+            int i = cursors[top];
+            int end = graph.getTailsEnd(vId);
+            while(i < end && graph.isExplored(graph.getTail(i))) { i++; }
+
+            if(i < end)
+            {
+                // Walks to the unexplored tail vertex, resuming vId later
+                int uId = graph.getTail(i);
+                cursors[top] = i + 1;
+                graph.setVertexAsExplored(uId);
+                top++;
+                stack[top] = uId;
+                cursors[top] = graph.getTailsStart(uId);
+            }
+            else
             {
-                DFSForFinishingTimes(graph, adjVertex.getId());
+                // Every tail was explored, sets the finishing time for vId
+                top--;
+                Connected.progress.visitVertex(
+                        end - graph.getTailsStart(vId));
+                Connected.t++;
+                graph.setFinishingTime(vId, Connected.t);
             }
         }
-        // Sets the finishing time for vId
-        Connected.t++;
-        graph.setFinishingTime(vId, t);
     }
 
     /**
      * Runs depth-first search (DFS) on the given graph to find the leader
      * vertices of each of the strongly-connected components (SCCs) and build
-     * each of the SCCs.
+     * each of the SCCs. Uses an explicit stack so the thread stack doesn't
+     * grow with the graph.
      * @param graph Graph to examine.
-     * @param vId Id of the vertex to start running DFS at.
+     * @param sId Id of the vertex to start running DFS at.
      */
-    private static void DFSForFindingLeaders(Graph graph, int vId)
+    private static void DFSForFindingLeaders(Graph graph, int sId)
     {
-        // Sets the current vertex as explored
-        graph.setVertexAsExplored(vId);
-        //Walks through the adjacent vertices with depth-first search
-        for(Vertex adjVertex : graph.getHeadVertices(vId))
+        int [] stack = Connected.stack;
+        int [] cursors = Connected.cursors;
+
+        // Sets the starting vertex as explored and pushes it
+        graph.setVertexAsExplored(sId);
+        int top = 0;
+        stack[top] = sId;
+        cursors[top] = graph.getHeadsStart(sId);
+        while(top >= 0)
         {
-            if(adjVertex!= null && !adjVertex.isExplored())
+            // Advances the cursor of the vertex on top up to its next
+            // unexplored head vertex
+            int vId = stack[top];
+            int i = cursors[top];
+            int end = graph.getHeadsEnd(vId);
+            while(i < end && graph.isExplored(graph.getHead(i))) { i++; }
+
+            if(i < end)
+            {
+                // Walks to the unexplored head vertex, resuming vId later
+                int wId = graph.getHead(i);
+                cursors[top] = i + 1;
+                graph.setVertexAsExplored(wId);
+                top++;
+                stack[top] = wId;
+                cursors[top] = graph.getHeadsStart(wId);
+            }
+            else
+            {
+                // Every head was explored, labels vId with the current SCC
+                top--;
+                Connected.progress.visitVertex(
+                        end - graph.getHeadsStart(vId));
+                Connected.components[vId] = Connected.count - 1;
+                Connected.sizes[Connected.count - 1]++;
+            }
+        }
+    }
+
+    /**
+     * Runs Tarjan's depth-first search (DFS) on the given graph, adding each
+     * strongly-connected component (SCC) as soon as its root vertex finishes.
+     * Uses an explicit stack so the thread stack doesn't grow with the graph.
+     * @param graph Graph to examine.
+     * @param sId Id of the vertex to start running DFS at.
+     */
+    private static void DFSForTarjan(Graph graph, int sId)
+    {
+        int [] stack = Connected.stack;
+        int [] cursors = Connected.cursors;
+        int [] indexes = Connected.indexes;
+        int [] lowLinks = Connected.lowLinks;
+
+        // Visits the starting vertex and pushes it
+        int top = 0;
+        Connected.visit(sId);
+        stack[top] = sId;
+        cursors[top] = graph.getHeadsStart(sId);
+        while(top >= 0)
+        {
+            int vId = stack[top];
+            int i = cursors[top];
+            if(i < graph.getHeadsEnd(vId))
+            {
+                int wId = graph.getHead(i);
+                cursors[top] = i + 1;
+                if(indexes[wId] == 0)
+                {
+                    // Walks to the unvisited head vertex, resuming vId later
+                    Connected.visit(wId);
+                    top++;
+                    stack[top] = wId;
+                    cursors[top] = graph.getHeadsStart(wId);
+                }
+                else if(lowLinks[wId] > 0)
+                {
+                    // wId is still in the SCC stack, so it's in vId's SCC
+                    lowLinks[vId] = Math.min(lowLinks[vId], indexes[wId]);
+                }
+            }
+            else
             {
-                DFSForFindingLeaders(graph, adjVertex.getId());
+                // Every head was visited, propagates the low link to parent
+                top--;
+                Connected.progress.visitVertex(
+                        graph.getHeadsEnd(vId) - graph.getHeadsStart(vId));
+                if(top >= 0)
+                {
+                    int uId = stack[top];
+                    lowLinks[uId] = Math.min(lowLinks[uId], lowLinks[vId]);
+                }
+
+                // If vId is the root of an SCC, pops it from the SCC stack
+                if(lowLinks[vId] == indexes[vId])
+                {
+                    int component = Connected.addScc();
+                    int wId;
+                    do
+                    {
+                        wId = Connected.sccStack[--Connected.sccStackSize];
+                        // Marks wId as assigned to an SCC
+                        lowLinks[wId] = -lowLinks[wId];
+                        Connected.components[wId] = component;
+                        Connected.sizes[component]++;
+                    }
+                    while(wId != vId);
+                }
             }
         }
-        // Adds current vId to the corresponding scc
-        Connected.scc.add(vId);
+    }
+
+    /**
+     * Assigns the next discovery index to the vertex with the given id and
+     * pushes it into the SCC stack of Tarjan's algorithm.
+     * @param vId Id of the vertex being visited.
+     */
+    private static void visit(int vId)
+    {
+        Connected.index++;
+        Connected.indexes[vId] = Connected.index;
+        Connected.lowLinks[vId] = Connected.index;
+        Connected.sccStack[Connected.sccStackSize++] = vId;
     }
 }
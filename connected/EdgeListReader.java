@@ -0,0 +1,246 @@
+/**
+ * $Id: EdgeListReader.java, v 1.0 17/10/26 12:10 oscarfabra Exp $
+ * {@code EdgeListReader} Is a class that builds a directed graph from a file
+ * with one edge per line. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Class that builds a directed graph from a file with one edge per line in
+ * the form "a b", where a is the tail and b the head of the edge. The file is
+ * memory-mapped and parsed byte by byte twice: the first pass counts the
+ * out-degree of each vertex, the second one places each head directly in the
+ * CSR arrays of the graph. No String or boxed Integer is created per line.
+ * The two numbers of a line may be separated by spaces or tabs only, so a
+ * sign, any other character, a vertex id 0 or a line without exactly two
+ * numbers is reported with its byte offset instead of being skipped.
+ * @see Graph
+ */
+public class EdgeListReader
+{
+    //-------------------------------------------------------------------------
+    // CONSTANTS
+    //-------------------------------------------------------------------------
+
+    // Largest region of the file mapped at once
+    private static final long REGION = 1L << 30;
+
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Whether the current pass is the one filling the heads array
+    private boolean filling;
+
+    // Number of vertices seen so far, i.e. largest vertex id
+    private int n;
+
+    // Number of edges seen so far
+    private int m;
+
+    // During the first pass, out-degree of each vertex v in counts[v + 1].
+    // During the second one, next free slot in heads of each vertex v
+    private int [] counts;
+
+    // Head vertices of the edges leaving each vertex, grouped by tail
+    private int [] heads;
+
+    // Tail of the edge being parsed, -1 if its tail hasn't been parsed yet
+    private int tail;
+
+    // Whether the edge of the line being parsed has been parsed already
+    private boolean ended;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    private EdgeListReader()
+    {
+        this.counts = new int[1024];
+        this.tail = -1;
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC CLASS METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Reads the file with the given path and builds the graph it describes.
+     * <b>Pre: </b>Each line of the file is in the form "a b" where a is the
+     * tail and b the head of each edge, a, b in [1...n].
+     * @param filename Path of the file to read.
+     * @return Graph with the edges of the file.
+     * @throws IOException If the file couldn't be read or isn't in the form
+     *                     above, with the byte offset of the first error.
+     */
+    public static Graph read(String filename) throws IOException
+    {
+        EdgeListReader reader = new EdgeListReader();
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        try
+        {
+            FileChannel channel = file.getChannel();
+
+            // Counts the out-degree of each vertex
+            reader.scan(channel);
+
+            // Turns degrees into offsets, headsStart[v] is the first slot of
+            // v, and fills the heads array
+            int n = reader.n;
+            int [] headsStart = Arrays.copyOf(reader.counts, n + 2);
+            for(int v = 1; v <= n + 1; v++)
+            {
+                headsStart[v] += headsStart[v - 1];
+            }
+            reader.counts = Arrays.copyOf(headsStart, n + 2);
+            reader.heads = new int[reader.m];
+            reader.filling = true;
+            reader.scan(channel);
+
+            return new Graph(n, headsStart, reader.heads);
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Parses every number in the given channel, handling each pair of them
+     * as the tail and head of an edge. Numbers may span mapped regions.
+     * @param channel Channel of the file to parse.
+     * @throws IOException If the file couldn't be mapped, or has a negative
+     *                     number, a number larger than Integer.MAX_VALUE, a
+     *                     vertex id 0, a character other than digits and
+     *                     separators, or a line without exactly two numbers.
+     */
+    private void scan(FileChannel channel) throws IOException
+    {
+        long size = channel.size();
+        int number = 0;
+        boolean inNumber = false;
+        long start = 0;
+        for(long position = 0; position < size; position += REGION)
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                    position, Math.min(REGION, size - position));
+            int limit = buffer.limit();
+            for(int i = 0; i < limit; i++)
+            {
+                byte b = buffer.get(i);
+                int digit = b - '0';
+                if(digit >= 0 && digit <= 9)
+                {
+                    if(!inNumber)
+                    {
+                        start = position + i;
+                        inNumber = true;
+                    }
+                    if(number > (Integer.MAX_VALUE - digit) / 10)
+                    {
+                        throw new IOException("Number larger than " +
+                                Integer.MAX_VALUE + " at byte " +
+                                (position + i) + ".");
+                    }
+                    number = number * 10 + digit;
+                    continue;
+                }
+                if(b != ' ' && b != '\t' && b != '\r' && b != '\n')
+                {
+                    throw new IOException((b == '-' ? "Negative number" :
+                            "Unexpected character") + " at byte " +
+                            (position + i) + ".");
+                }
+                if(inNumber)
+                {
+                    this.addNumber(number, start);
+                    number = 0;
+                    inNumber = false;
+                }
+                if(b == '\n')
+                {
+                    this.endLine(position + i);
+                }
+            }
+        }
+        if(inNumber)
+        {
+            this.addNumber(number, start);
+        }
+        this.endLine(size);
+    }
+
+    /**
+     * Handles the given number as the tail of a new edge, or as the head of
+     * the edge whose tail was the previous number.
+     * @param number Vertex id parsed.
+     * @param offset Position of the first byte of the number in the file.
+     * @throws IOException If the number is 0, or the third one of its line.
+     */
+    private void addNumber(int number, long offset) throws IOException
+    {
+        if(number == 0)
+        {
+            throw new IOException("Vertex id 0 at byte " + offset + ".");
+        }
+        if(this.ended)
+        {
+            throw new IOException("Extra number at byte " + offset + ".");
+        }
+        if(this.tail < 0)
+        {
+            this.tail = number;
+            return;
+        }
+        int head = number;
+        if(this.filling)
+        {
+            this.heads[this.counts[this.tail]++] = head;
+        }
+        else
+        {
+            // Grows the degrees array so both endpoints fit in it
+            int max = Math.max(this.tail, head);
+            if(max + 2 > this.counts.length)
+            {
+                this.counts = Arrays.copyOf(this.counts,
+                        Math.max(max + 2, this.counts.length * 2));
+            }
+            this.counts[this.tail + 1]++;
+            this.n = Math.max(this.n, max);
+            this.m++;
+        }
+        this.tail = -1;
+        this.ended = true;
+    }
+
+    /**
+     * Handles the end of a line, which may not leave an edge without its
+     * head.
+     * @param offset Position of the line break, or size of the file at its
+     *               end.
+     * @throws IOException If the line has a tail but no head.
+     */
+    private void endLine(long offset) throws IOException
+    {
+        if(this.tail >= 0)
+        {
+            throw new IOException("Edge without head at byte " + offset + ".");
+        }
+        this.ended = false;
+    }
+}
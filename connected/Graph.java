@@ -3,17 +3,19 @@
  * {@code Graph} Represents a directed graph with n vertices and m edges.
  *
  * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
- * @version 1.2
+ * @version 1.5
  * @since 3/06/14
  */
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
- * Represents a directed graph with n vertices and m edges.
+ * Represents a directed graph with n vertices and m edges. Adjacencies are
+ * stored in compressed sparse row (CSR) form: for each vertex v, the heads of
+ * the edges leaving v are heads[headsStart[v]...headsStart[v + 1] - 1] and
+ * the tails of the edges arriving at v are
+ * tails[tailsStart[v]...tailsStart[v + 1] - 1]. Vertex ids are in [1...n].
+ * The tails arrays are only built when an algorithm asks for them.
  */
 public class Graph
 {
@@ -21,145 +23,84 @@ public class Graph
     // ATTRIBUTES
     //-------------------------------------------------------------------------
 
-    // Number of vertices, n = V.size()
+    // Number of vertices, vertex ids are in [1...n]
     private int n;
 
-    // Number of edges, m = E.size()
+    // Number of edges, m = headsStart[n + 1]
     private int m;
 
-    // Map of vertices with (vertexId, Vertex) pairs
-    private Map<Integer,Vertex> V;
+    // Offsets in heads of the edges leaving each vertex, size n + 2
+    private int [] headsStart;
 
-    // List of edges
-    private Map<Integer,Edge> E;
+    // Head vertices of the edges leaving each vertex, grouped by tail
+    private int [] heads;
 
-    // Maps vertices with the edges that leave from them
-    private Map<Integer,List<Integer>> vertexEdgesLeaving;
+    // Offsets in tails of the edges arriving at each vertex, size n + 2. Only
+    // built on demand by buildReverseAdjacencies()
+    private int [] tailsStart;
 
-    // Maps vertices with the edges that arrive at them
-    private Map<Integer,List<Integer>> vertexEdgesArriving;
+    // Tail vertices of the edges arriving at each vertex, grouped by head.
+    // Only built on demand by buildReverseAdjacencies()
+    private int [] tails;
 
-    // Finishing times of each vertex, finishingTimes.size() = n
-    private Map<Integer,Integer> finishingTimes;
+    // Indicates whether each vertex has been explored, size n + 1
+    private boolean [] explored;
 
-    // Vertices for each finishing time, finishingVertices.size() = n
-    private Map<Integer,Integer> finishingVertices;
+    // Finishing times of each vertex, size n + 1
+    private int [] finishingTimes;
+
+    // Vertices for each finishing time, size n + 1
+    private int [] finishingVertices;
 
     //-------------------------------------------------------------------------
     // CONSTRUCTORS
     //-------------------------------------------------------------------------
 
     /**
-     * Creates a new graph from the given map of head vertices of each vertex.
-     * @param verticesLeaving Maps vertices with vertices they point at.
+     * Creates a new graph from the given parallel arrays of edge endpoints.
+     * <b>Pre: </b>Vertex ids are in [1...n], the i-th edge goes from
+     * edgeTails[i] to edgeHeads[i], i in [0...m-1].
+     * @param n Number of vertices of the graph.
+     * @param m Number of edges of the graph.
+     * @param edgeTails Tail vertex of each edge.
+     * @param edgeHeads Head vertex of each edge.
      */
-    public Graph(Map<Integer, List<Integer>> verticesLeaving)
+    public Graph(int n, int m, int [] edgeTails, int [] edgeHeads)
     {
-        // Initializes the map of vertices, O(n) algorithm
-        this.V = new HashMap<Integer, Vertex>();
-        System.out.print("-- Initializing list of vertices V...");
-        for(Integer key : verticesLeaving.keySet())
+        // Counts the out-degree of each vertex in headsStart[v + 1]
+        int [] headsStart = new int[n + 2];
+        int [] heads = new int[m];
+        for(int i = 0; i < m; i++)
         {
-            this.V.put(key, new Vertex(key));
+            headsStart[edgeTails[i] + 1]++;
         }
-        this.n = this.V.size();
-        System.out.println("done.");
-
-        // Initializes the list of edges and vertexEdges, O(m) algorithm
-        int newEdgeId = 1;
-        this.E = new HashMap<Integer, Edge>(this.n * 2);
-        this.vertexEdgesLeaving = new HashMap<Integer, List<Integer>>(this.n);
-        this.vertexEdgesArriving = new HashMap<Integer, List<Integer>>(this.n);
-        System.out.println("-- Initializing list of edges E...");
-        for(Integer key : this.V.keySet())
+        // Turns degrees into offsets, headsStart[v] is the first slot of v
+        for(int v = 1; v <= n + 1; v++)
         {
-            // Guarantees that there's a value for each key in V
-            this.vertexEdgesLeaving.put(key, new ArrayList<Integer>());
-            List<Integer> edgesIds = this.vertexEdgesArriving.remove(key);
-            if(edgesIds == null) { edgesIds = new ArrayList<Integer>(); }
-            this.vertexEdgesArriving.put(key, edgesIds);
-
-            // Walks through list verticesLeaving creating the appropriate edges
-            for(Integer head : verticesLeaving.get(key))
-            {
-                Edge edge = new Edge(newEdgeId, key, head);
-                this.E.put(newEdgeId, edge);
-                this.addVertexEdge(key, head, newEdgeId++);
-
-                // Message in standard output for logging purposes
-                if((newEdgeId % 20000) == 0)
-                {
-                    System.out.println("---- "+ newEdgeId +" edges setup.");
-                }
-            }
+            headsStart[v] += headsStart[v - 1];
         }
-        this.m = this.E.size();
-        System.out.println("-- ...list of edges E initialized.");
-
-        // Initializes the finishingTimes list.
-        this.finishingTimes = new HashMap<Integer, Integer>(this.n);
-
-        // Initializes the finishingVertices list.
-        this.finishingVertices = new HashMap<Integer, Integer>(this.n);
-    }
-
-    //-------------------------------------------------------------------------
-    // CLASS METHODS
-    //-------------------------------------------------------------------------
-
-    /**
-     * Extracts the corresponding adjacency lists to initialize a new Graph
-     * from the given list of edges.
-     * <b>Pre: </b>The input format must be a list of String, each in the form
-     * "a b" where a is the tail and b the head of each edge, a, b in [1...n].
-     * <br/>
-     * @param edges List of String, each with the head and tail of each edge.
-     * @param verticesLeaving Maps vertices with vertices they point at.
-     */
-    public static void buildVertexEndpoints(List<String> edges, Map<Integer,
-            List<Integer>> verticesLeaving)
-    {
-        // Walks through the given list of strings constructing the hashmap
-        for(int i = 0; i < edges.size(); i++)
+        // Places each head in the next free slot of its tail
+        int [] next = Arrays.copyOf(headsStart, n + 2);
+        for(int i = 0; i < m; i++)
         {
-            // Extracts and adds the corresponding pair (key, value of list) to
-            // the hashmap. Each pair (key, list) in the hashmap is the id of a
-            // vertex, and the list of head vertices that come out from it
-            String edge = edges.get(i);
-            String[] vertices = edge.split(" ");
-            int key = Integer.parseInt(vertices[0]);
-            int value = Integer.parseInt(vertices[1]);
-            Graph.addVertexEndpoints(key, value, verticesLeaving);
-
-            // Message in standard output for logging purposes
-            if((i + 1) % 20000 == 0)
-            {
-                System.out.println("---- "+(i + 1)+" endPoints stored.");
-            }
+            heads[next[edgeTails[i]]++] = edgeHeads[i];
         }
+        this.init(n, headsStart, heads);
     }
 
     /**
-     * Adds vertices to the given maps.
-     * @param v Id of one vertex endpoint.
-     * @param w Id of another vertex endpoint.
-     * @param verticesLeaving Maps vertices with its head vertices.
+     * Creates a new graph from the given CSR arrays of edges leaving each
+     * vertex, which are used without copying them.
+     * <b>Pre: </b>Vertex ids are in [1...n], headsStart has n + 2 positions
+     * and the heads of vertex v are heads[headsStart[v]...headsStart[v + 1]
+     * - 1].
+     * @param n Number of vertices of the graph.
+     * @param headsStart Offsets in heads of the edges leaving each vertex.
+     * @param heads Head vertices of the edges leaving each vertex.
      */
-    private static void addVertexEndpoints(
-            int v,
-            int w,
-            Map<Integer, List<Integer>> verticesLeaving)
+    public Graph(int n, int [] headsStart, int [] heads)
     {
-        // Adds value to chained list of head vertices.
-        List<Integer> headVertices = verticesLeaving.remove(v);
-        if(headVertices == null) { headVertices = new ArrayList<Integer>(); }
-        headVertices.add(w);
-        verticesLeaving.put(v, headVertices);
-
-        // Guarantees w has an associated list even if it's empty
-        headVertices = verticesLeaving.remove(w);
-        if(headVertices == null) { headVertices = new ArrayList<Integer>(); }
-        verticesLeaving.put(w, headVertices);
+        this.init(n, headsStart, heads);
     }
 
     //-------------------------------------------------------------------------
@@ -185,114 +126,171 @@ public class Graph
     }
 
     /**
-     * Gets the vertex with the given id in V.
-     * @param vertexId Id of the vertex to look for.
-     * @return Vertex with the given id.
+     * Gets the position in the heads array of the first edge leaving the
+     * vertex with the given id.
+     * @param vId Id of the vertex to look for.
+     * @return Position of the first head vertex of the given vertex.
      */
-    public Vertex getVertex(int vertexId)
+    public int getHeadsStart(int vId)
     {
-        if(!this.V.containsKey(vertexId))
+        return this.headsStart[vId];
+    }
+
+    /**
+     * Gets the position in the heads array right after the last edge leaving
+     * the vertex with the given id.
+     * @param vId Id of the vertex to look for.
+     * @return Position after the last head vertex of the given vertex.
+     */
+    public int getHeadsEnd(int vId)
+    {
+        return this.headsStart[vId + 1];
+    }
+
+    /**
+     * Gets the head vertex stored at the given position of the heads array.
+     * @param index Position in the heads array, index in [0...m-1].
+     * @return Id of the head vertex at the given position.
+     */
+    public int getHead(int index)
+    {
+        return this.heads[index];
+    }
+
+    /**
+     * Builds the tails arrays with the edges arriving at each vertex, if they
+     * haven't been built yet. Algorithms that only walk edges forwards never
+     * call it, so the reverse adjacencies don't take up memory for them.
+     */
+    public void buildReverseAdjacencies()
+    {
+        if(this.tails != null)
         {
-            return null;
+            return;
+        }
+        // Counts the in-degree of each vertex in tailsStart[v + 1]
+        this.tailsStart = new int[this.n + 2];
+        this.tails = new int[this.m];
+        for(int i = 0; i < this.m; i++)
+        {
+            this.tailsStart[this.heads[i] + 1]++;
+        }
+        for(int v = 1; v <= this.n + 1; v++)
+        {
+            this.tailsStart[v] += this.tailsStart[v - 1];
+        }
+        // Walks through the forward adjacencies placing each tail in the next
+        // free slot of its head
+        int [] next = Arrays.copyOf(this.tailsStart, this.n + 2);
+        for(int v = 1; v <= this.n; v++)
+        {
+            for(int i = this.headsStart[v]; i < this.headsStart[v + 1]; i++)
+            {
+                this.tails[next[this.heads[i]]++] = v;
+            }
         }
-        return this.V.get(vertexId);
     }
 
     /**
-     * Sets the vertex with the given id as explored.
-     * @param vertexId Id of the vertex to look for.
+     * Gets the position in the tails array of the first edge arriving at the
+     * vertex with the given id.
+     * <b>Pre: </b>buildReverseAdjacencies() has been called.
+     * @param vId Id of the vertex to look for.
+     * @return Position of the first tail vertex of the given vertex.
      */
-    public void setVertexAsExplored(int vertexId)
+    public int getTailsStart(int vId)
     {
-        Vertex vertex = this.V.remove(vertexId);
-        vertex.setExplored();
-        this.V.put(vertexId, vertex);
+        return this.tailsStart[vId];
     }
 
     /**
-     * Sets the vertex with the given id as unexplored.
+     * Gets the position in the tails array right after the last edge arriving
+     * at the vertex with the given id.
+     * <b>Pre: </b>buildReverseAdjacencies() has been called.
+     * @param vId Id of the vertex to look for.
+     * @return Position after the last tail vertex of the given vertex.
+     */
+    public int getTailsEnd(int vId)
+    {
+        return this.tailsStart[vId + 1];
+    }
+
+    /**
+     * Gets the tail vertex stored at the given position of the tails array.
+     * <b>Pre: </b>buildReverseAdjacencies() has been called.
+     * @param index Position in the tails array, index in [0...m-1].
+     * @return Id of the tail vertex at the given position.
+     */
+    public int getTail(int index)
+    {
+        return this.tails[index];
+    }
+
+    /**
+     * Says whether the vertex with the given id has been explored.
      * @param vertexId Id of the vertex to look for.
+     * @return Whether the given vertex has been explored.
      */
-    public void setVertexAsUnexplored(int vertexId)
+    public boolean isExplored(int vertexId)
     {
-        Vertex vertex = this.V.remove(vertexId);
-        vertex.removeExplored();
-        this.V.put(vertexId, vertex);
+        return this.explored[vertexId];
     }
 
     /**
-     * Gets the finishing time of vertex with the given id.
-     * @param vId Id of the vertex in map finishingTimes.
-     * @return Finishing time of the given vertex.
+     * Sets the vertex with the given id as explored.
+     * @param vertexId Id of the vertex to look for.
      */
-    public int getFinishingTime(int vId)
+    public void setVertexAsExplored(int vertexId)
     {
-        if(!this.finishingTimes.containsKey(vId))
-        {
-            return -1;
-        }
-        return this.finishingTimes.get(vId);
+        this.explored[vertexId] = true;
     }
 
     /**
-     * Sets the finishing time of vertex with the given id.
-     * @param vId Id of the vertex in list finishingTimes.
-     * @param t Finishing time to assign to such vertex.
+     * Sets the vertex with the given id as unexplored.
+     * @param vertexId Id of the vertex to look for.
      */
-    public void setFinishingTime(int vId, int t)
+    public void setVertexAsUnexplored(int vertexId)
     {
-        this.finishingTimes.put(vId, t);
-        this.finishingVertices.put(t, vId);
+        this.explored[vertexId] = false;
     }
 
     /**
-     * Finds and gets the vertex in V with the given finishing time.
-     * @param t Finishing time to look for.
-     * @return Vertex in V with the given finishing time.
+     * Sets every vertex of this graph as unexplored.
      */
-    public Vertex getVertexByFinishingTime(int t)
+    public void setAllVerticesAsUnexplored()
     {
-        if(!this.finishingVertices.containsKey(t))
-        {
-            return null;
-        }
-        // Gets the id and returns the vertex from V
-        int vertexId = this.finishingVertices.get(t);
-        return this.V.get(vertexId);
+        Arrays.fill(this.explored, false);
     }
 
     /**
-     * Returns a list with vertices to where vertex with given id points at.
+     * Gets the finishing time of vertex with the given id.
      * @param vId Id of the vertex to look for.
-     * @return List of vertices to where given vertex points at.
+     * @return Finishing time of the given vertex, 0 if it hasn't been set.
      */
-    public List<Vertex> getHeadVertices(int vId)
+    public int getFinishingTime(int vId)
     {
-        // Walks through the list of vertices head of vertex with given id
-        List<Vertex> headVertices = new ArrayList<Vertex>();
-        for(Integer edgeId : this.vertexEdgesLeaving.get(vId))
-        {
-            int headId = this.E.get(edgeId).getHead();
-            headVertices.add(this.V.get(headId));
-        }
-        return headVertices;
+        return this.finishingTimes[vId];
     }
 
     /**
-     * Returns a list with tail vertices of given vertex.
+     * Sets the finishing time of vertex with the given id.
      * @param vId Id of the vertex to look for.
-     * @return List of tail vertices of given vertex.
+     * @param t Finishing time to assign to such vertex, t in [1...n].
      */
-    public List<Vertex> getTailVertices(int vId)
+    public void setFinishingTime(int vId, int t)
     {
-        // Walks through the list of tail vertices of vertex with given id
-        List<Vertex> tailVertices = new ArrayList<Vertex>();
-        for(Integer edgeId : this.vertexEdgesArriving.get(vId))
-        {
-            int tailId = this.E.get(edgeId).getTail();
-            tailVertices.add(this.V.get(tailId));
-        }
-        return tailVertices;
+        this.finishingTimes[vId] = t;
+        this.finishingVertices[t] = vId;
+    }
+
+    /**
+     * Finds and gets the vertex with the given finishing time.
+     * @param t Finishing time to look for, t in [1...n].
+     * @return Id of the vertex with the given finishing time, 0 if none.
+     */
+    public int getVertexByFinishingTime(int t)
+    {
+        return this.finishingVertices[t];
     }
 
     //-------------------------------------------------------------------------
@@ -300,24 +298,22 @@ public class Graph
     //-------------------------------------------------------------------------
 
     /**
-     * Adds a new entry to vertexEdgesLeaving and vertexEdgesArriving hashmaps.
-     * @param vId Id of one vertex.
-     * @param wId Id of another vertex.
-     * @param edgeId Id of the edge to add to the hashmaps.
+     * Initializes this graph with the given CSR arrays of edges leaving each
+     * vertex.
+     * @param n Number of vertices of the graph.
+     * @param headsStart Offsets in heads of the edges leaving each vertex.
+     * @param heads Head vertices of the edges leaving each vertex.
      */
-    private void addVertexEdge(Integer vId, Integer wId, int edgeId)
+    private void init(int n, int [] headsStart, int [] heads)
     {
-        // Gets the list of edge's ids related to the given vertexId, adds the
-        // new edgeId and puts it again in the hashmap.
-        List<Integer> edgesIds = this.vertexEdgesLeaving.remove(vId);
-        if(edgesIds == null) { edgesIds = new ArrayList<Integer>(); }
-        edgesIds.add(edgeId);
-        this.vertexEdgesLeaving.put(vId, edgesIds);
-
-        // Does it again for the vertexEdgesArriving hashmap
-        edgesIds = this.vertexEdgesArriving.remove(wId);
-        if(edgesIds == null) { edgesIds = new ArrayList<Integer>(); }
-        edgesIds.add(edgeId);
-        this.vertexEdgesArriving.put(wId, edgesIds);
+        this.n = n;
+        this.m = headsStart[n + 1];
+        this.headsStart = headsStart;
+        this.heads = heads;
+
+        // Initializes the explored flags and finishing times
+        this.explored = new boolean[n + 1];
+        this.finishingTimes = new int[n + 1];
+        this.finishingVertices = new int[n + 1];
     }
 }
@@ -0,0 +1,215 @@
+/**
+ * $Id: GraphFile.java, v 1.0 17/10/26 13:00 oscarfabra Exp $
+ * {@code GraphFile} Is a class that writes and reads directed graphs in a
+ * compact binary format. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Class that writes and reads directed graphs in a compact binary format, so
+ * a graph parsed once from text can be loaded again almost instantly. The
+ * file is a sequence of big-endian ints:
+ * <ul>
+ * <li>Header: MAGIC, VERSION, flags (WEIGHTED if there are weights), n, m.
+ * </li>
+ * <li>Offsets: n + 1 ints, the heads of vertex v are in targets[offsets[v -
+ * 1]...offsets[v] - 1], v in [1...n].</li>
+ * <li>Targets: m ints with the head vertex of each edge.</li>
+ * <li>Weights: m ints with the length of each edge, only if WEIGHTED.</li>
+ * </ul>
+ * The same format is used for the graphs of Dijkstra's shortest paths.
+ * Reading maps the file read-only and bulk-copies each section into the
+ * graph's arrays, which the algorithms index directly in their inner loops.
+ * @see Graph
+ */
+public class GraphFile
+{
+    //-------------------------------------------------------------------------
+    // CONSTANTS
+    //-------------------------------------------------------------------------
+
+    // First int of every graph file, "GRPH" in ASCII
+    public static final int MAGIC = 0x47525048;
+
+    // Version of the format written by this class
+    public static final int VERSION = 1;
+
+    // Flag set when the file has a weight for each edge
+    public static final int WEIGHTED = 1;
+
+    // Number of ints in the header
+    private static final int HEADER = 5;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    private GraphFile(){}   // This class shouldn't be instantiated
+
+    //-------------------------------------------------------------------------
+    // PUBLIC CLASS METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Says whether the file with the given path starts with MAGIC.
+     * @param filename Path of the file to check.
+     * @return Whether the file is a binary graph file.
+     * @throws IOException If the file couldn't be read.
+     */
+    public static boolean isGraphFile(String filename) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        try
+        {
+            return file.length() >= HEADER * 4 && file.readInt() == MAGIC;
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+
+    /**
+     * Writes the given graph to the file with the given path.
+     * @param graph Graph to write.
+     * @param filename Path of the file to write.
+     * @throws IOException If the file couldn't be written.
+     */
+    public static void write(Graph graph, String filename) throws IOException
+    {
+        int n = graph.getN();
+        DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filename),
+                        1 << 16));
+        try
+        {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(0);
+            output.writeInt(n);
+            output.writeInt(graph.getM());
+            for(int v = 1; v <= n + 1; v++)
+            {
+                output.writeInt(graph.getHeadsStart(v));
+            }
+            for(int v = 1; v <= n; v++)
+            {
+                for(int i = graph.getHeadsStart(v); i < graph.getHeadsEnd(v);
+                    i++)
+                {
+                    output.writeInt(graph.getHead(i));
+                }
+            }
+        }
+        finally
+        {
+            output.close();
+        }
+    }
+
+    /**
+     * Reads the graph in the binary file with the given path. Weights, if
+     * any, are ignored.
+     * @param filename Path of the file to read.
+     * @return Graph stored in the file.
+     * @throws IOException If the file couldn't be read or isn't valid.
+     */
+    public static Graph read(String filename) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        try
+        {
+            FileChannel channel = file.getChannel();
+            IntBuffer header = GraphFile.map(channel, 0, HEADER);
+            if(header.get(0) != MAGIC || header.get(1) != VERSION)
+            {
+                throw new IOException(filename + " isn't a graph file.");
+            }
+            int n = header.get(3);
+            int m = header.get(4);
+
+            // headsStart[0] is left as 0 since vertex ids start at 1
+            long position = HEADER * 4L;
+            int [] headsStart = new int[n + 2];
+            GraphFile.map(channel, position, n + 1).get(headsStart, 1, n + 1);
+            position += (n + 1) * 4L;
+            int [] heads = new int[m];
+            GraphFile.map(channel, position, m).get(heads);
+
+            return new Graph(n, headsStart, heads);
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Maps read-only the given number of ints of the given channel.
+     * @param channel Channel of the file to map.
+     * @param position Position in bytes of the first int to map.
+     * @param ints Number of ints to map.
+     * @return Big-endian view of the mapped ints.
+     * @throws IOException If the region couldn't be mapped.
+     */
+    private static IntBuffer map(FileChannel channel, long position, int ints)
+            throws IOException
+    {
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                position, ints * 4L);
+        return buffer.asIntBuffer();
+    }
+
+    //-------------------------------------------------------------------------
+    // MAIN
+    //-------------------------------------------------------------------------
+
+    /**
+     * Converts a text file with one edge per line into a binary graph file.
+     * @param args -file=filepath with the text file to convert, and
+     *             -out=filepath with the binary file to write
+     * @throws IOException If a file couldn't be read or written.
+     */
+    public static void main(String [] args) throws IOException
+    {
+        String input = null;
+        String output = null;
+        for(String arg : args)
+        {
+            if(arg.startsWith("-file="))
+            {
+                input = arg.substring(6);
+            }
+            else if(arg.startsWith("-out="))
+            {
+                output = arg.substring(5);
+            }
+        }
+        if(input == null || output == null)
+        {
+            System.out.println("Usage: GraphFile -file=filepath " +
+                    "-out=filepath");
+            return;
+        }
+        Graph graph = EdgeListReader.read(input);
+        GraphFile.write(graph, output);
+        System.out.println("Wrote " + output + " with n = " + graph.getN() +
+                ", m = " + graph.getM() + ".");
+    }
+}
@@ -0,0 +1,645 @@
+/**
+ * $Id: IncrementalConnected.java, v 1.0 17/10/26 15:10 oscarfabra Exp $
+ * {@code IncrementalConnected} Is a class that keeps the strongly connected
+ * components of a directed graph up to date while edges are added. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.util.Arrays;
+
+/**
+ * Class that keeps the strongly connected components (SCCs) of a directed
+ * graph with n vertices up to date while edges are added, without finding
+ * them all again. It starts from the condensation of the graph and keeps a
+ * topological order of its SCCs with the algorithm of Pearce and Kelly: when
+ * a new edge u -> v goes backwards in the order, only the SCCs with positions
+ * between v's and u's are searched and reordered. If v reaches u, the SCCs on
+ * the paths from v to u are merged into one.
+ * <ul>
+ * <li>Each SCC is named by one of its vertices, its representative, found
+ * through a union-find structure with path halving.</li>
+ * <li>Edges between SCCs are kept in linked lists over primitive arrays,
+ * forwards and backwards, so merging SCCs appends their lists in O(1).
+ * Edges that end up inside an SCC or duplicated after a merge are left in
+ * the lists and skipped when found.</li>
+ * </ul>
+ * @see Condensation
+ */
+public class IncrementalConnected
+{
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Number of vertices, vertex ids are in [1...n]
+    private int n;
+
+    // Number of SCCs
+    private int count;
+
+    // Parent of each vertex in the union-find structure, representatives
+    // are their own parents
+    private int [] parents;
+
+    // Number of vertices of the SCC of each representative
+    private int [] sizes;
+
+    // Position of the SCC of each representative in the topological order
+    private int [] orders;
+
+    // Vertex holding each position of the topological order, which is not a
+    // representative anymore if its SCC was merged into another
+    private int [] ordered;
+
+    // Number of edges between SCCs stored so far
+    private int edges;
+
+    // Tail and head vertex of each stored edge, not necessarily
+    // representatives anymore
+    private int [] edgeTails;
+    private int [] edgeHeads;
+
+    // Next edge in the list of edges leaving and arriving at the same SCC
+    // as each edge, -1 at the end of the list
+    private int [] nextLeaving;
+    private int [] nextArriving;
+
+    // First and last edge of the lists of edges leaving each representative,
+    // -1 if the list is empty
+    private int [] firstLeaving;
+    private int [] lastLeaving;
+
+    // First and last edge of the lists of edges arriving at each
+    // representative, -1 if the list is empty
+    private int [] firstArriving;
+    private int [] lastArriving;
+
+    // Number of the current search, used to mark the SCCs it reaches
+    private int stamp;
+
+    // Number of the last forward and backward searches that reached each
+    // representative
+    private int [] forwardMarks;
+    private int [] backwardMarks;
+
+    // Explicit stack of the searches
+    private int [] stack;
+
+    // Edge cursor of each frame in stack when sorting a region again
+    private int [] cursors;
+
+    // Discovery index and low link of each representative when sorting a
+    // region again with Tarjan's algorithm
+    private int [] indexes;
+    private int [] lowLinks;
+
+    // Stack of the SCCs not yet assigned to a new one when sorting a region
+    // again with Tarjan's algorithm
+    private int [] sccStack;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Finds the SCCs of the given graph and gets ready to add edges to it.
+     * The graph itself isn't modified.
+     * @param graph Graph to start from.
+     */
+    public IncrementalConnected(Graph graph)
+    {
+        this.n = graph.getN();
+        Components components = Connected.findComponents(graph,
+                Connected.TARJAN);
+        Condensation dag = new Condensation(graph, components);
+        this.count = components.getCount();
+
+        // Picks the first vertex of each SCC as its representative
+        int [] representatives = new int[this.count];
+        this.parents = new int[this.n + 1];
+        for(int v = 1; v <= this.n; v++)
+        {
+            int c = components.getComponent(v);
+            if(representatives[c] == 0)
+            {
+                representatives[c] = v;
+            }
+            this.parents[v] = representatives[c];
+        }
+        this.sizes = new int[this.n + 1];
+        this.orders = new int[this.n + 1];
+        this.ordered = new int[this.count];
+        int [] order = dag.getTopologicalOrder();
+        for(int i = 0; i < this.count; i++)
+        {
+            int r = representatives[order[i]];
+            this.sizes[r] = components.getSize(order[i]);
+            this.orders[r] = i;
+            this.ordered[i] = r;
+        }
+
+        // Copies the edges of the condensation
+        this.edgeTails = new int[Math.max(dag.getM(), 16)];
+        this.edgeHeads = new int[this.edgeTails.length];
+        this.nextLeaving = new int[this.edgeTails.length];
+        this.nextArriving = new int[this.edgeTails.length];
+        this.firstLeaving = new int[this.n + 1];
+        this.lastLeaving = new int[this.n + 1];
+        this.firstArriving = new int[this.n + 1];
+        this.lastArriving = new int[this.n + 1];
+        Arrays.fill(this.firstLeaving, -1);
+        Arrays.fill(this.lastLeaving, -1);
+        Arrays.fill(this.firstArriving, -1);
+        Arrays.fill(this.lastArriving, -1);
+        for(int c = 0; c < this.count; c++)
+        {
+            for(int i = dag.getHeadsStart(c); i < dag.getHeadsEnd(c); i++)
+            {
+                this.storeEdge(representatives[c],
+                        representatives[dag.getHead(i)]);
+            }
+        }
+
+        this.forwardMarks = new int[this.n + 1];
+        this.backwardMarks = new int[this.n + 1];
+        this.stack = new int[this.n + 1];
+        this.cursors = new int[this.n + 1];
+        this.indexes = new int[this.n + 1];
+        this.lowLinks = new int[this.n + 1];
+        this.sccStack = new int[this.n + 1];
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Adds the edge from tail to head and updates the SCCs.
+     * @param tail Id of the tail vertex, tail in [1...n].
+     * @param head Id of the head vertex, head in [1...n].
+     */
+    public void addEdge(int tail, int head)
+    {
+        int u = this.find(tail);
+        int v = this.find(head);
+        if(u == v)
+        {
+            return;
+        }
+        this.storeEdge(u, v);
+        if(this.orders[u] < this.orders[v])
+        {
+            return;
+        }
+
+        // The edge goes backwards, finds the SCCs reachable from v and the
+        // ones reaching u within the positions between them
+        this.stamp++;
+        int [] forward = this.search(v, this.orders[u], true);
+        int [] backward = this.search(u, this.orders[v], false);
+        this.reorder(forward, backward);
+    }
+
+    /**
+     * Adds the given batch of edges and updates the SCCs. If the edges going
+     * backwards in the order span more positions in total than the region
+     * between the first and the last of them, the whole region is sorted
+     * again at once instead of searching once per edge.
+     * @param tails Id of the tail vertex of each edge.
+     * @param heads Id of the head vertex of each edge.
+     */
+    public void addEdges(int [] tails, int [] heads)
+    {
+        // Measures the region between the edges going backwards
+        long spans = 0;
+        int from = Integer.MAX_VALUE;
+        int to = -1;
+        for(int i = 0; i < tails.length; i++)
+        {
+            int u = this.orders[this.find(tails[i])];
+            int v = this.orders[this.find(heads[i])];
+            if(u > v)
+            {
+                spans += u - v;
+                from = Math.min(from, v);
+                to = Math.max(to, u);
+            }
+        }
+        if(to < 0 || spans <= to - from)
+        {
+            for(int i = 0; i < tails.length; i++)
+            {
+                this.addEdge(tails[i], heads[i]);
+            }
+            return;
+        }
+        for(int i = 0; i < tails.length; i++)
+        {
+            int u = this.find(tails[i]);
+            int v = this.find(heads[i]);
+            if(u != v)
+            {
+                this.storeEdge(u, v);
+            }
+        }
+        this.sortRegion(from, to);
+    }
+
+    /**
+     * Gets the number of SCCs.
+     * @return Number of SCCs.
+     */
+    public int getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Gets the representative of the SCC of the vertex with the given id,
+     * two vertices are in the same SCC if they have the same one.
+     * @param vId Id of the vertex to look for, vId in [1...n].
+     * @return Id of the representative vertex of the given vertex's SCC.
+     */
+    public int getComponent(int vId)
+    {
+        return this.find(vId);
+    }
+
+    /**
+     * Gets the number of vertices of the SCC of the vertex with the given id.
+     * @param vId Id of the vertex to look for, vId in [1...n].
+     * @return Number of vertices of the given vertex's SCC.
+     */
+    public int getSize(int vId)
+    {
+        return this.sizes[this.find(vId)];
+    }
+
+    /**
+     * Gets a snapshot of the current SCCs with component ids in
+     * [0...count-1], e.g. to get the sizes of the largest ones.
+     * @return Current SCCs.
+     */
+    public Components getComponents()
+    {
+        int [] ids = new int[this.n + 1];
+        int [] componentSizes = new int[this.count];
+        int next = 0;
+        Arrays.fill(ids, -1);
+        for(int v = 1; v <= this.n; v++)
+        {
+            int r = this.find(v);
+            if(ids[r] < 0)
+            {
+                componentSizes[next] = this.sizes[r];
+                ids[r] = next++;
+            }
+        }
+        int [] components = new int[this.n + 1];
+        for(int v = 1; v <= this.n; v++)
+        {
+            components[v] = ids[this.find(v)];
+        }
+        return new Components(this.count, components, componentSizes);
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Finds the representative of the SCC of the given vertex, halving the
+     * path to it on the way.
+     * @param vId Id of the vertex to look for.
+     * @return Id of the representative vertex.
+     */
+    private int find(int vId)
+    {
+        while(this.parents[vId] != vId)
+        {
+            this.parents[vId] = this.parents[this.parents[vId]];
+            vId = this.parents[vId];
+        }
+        return vId;
+    }
+
+    /**
+     * Stores an edge from SCC u to SCC v at the end of their lists, growing
+     * the edge arrays if needed.
+     * @param u Representative of the tail SCC.
+     * @param v Representative of the head SCC.
+     */
+    private void storeEdge(int u, int v)
+    {
+        if(this.edges == this.edgeTails.length)
+        {
+            int length = 2 * this.edges;
+            this.edgeTails = Arrays.copyOf(this.edgeTails, length);
+            this.edgeHeads = Arrays.copyOf(this.edgeHeads, length);
+            this.nextLeaving = Arrays.copyOf(this.nextLeaving, length);
+            this.nextArriving = Arrays.copyOf(this.nextArriving, length);
+        }
+        int e = this.edges++;
+        this.edgeTails[e] = u;
+        this.edgeHeads[e] = v;
+        this.nextLeaving[e] = -1;
+        this.nextArriving[e] = -1;
+        if(this.lastLeaving[u] < 0) { this.firstLeaving[u] = e; }
+        else { this.nextLeaving[this.lastLeaving[u]] = e; }
+        this.lastLeaving[u] = e;
+        if(this.lastArriving[v] < 0) { this.firstArriving[v] = e; }
+        else { this.nextArriving[this.lastArriving[v]] = e; }
+        this.lastArriving[v] = e;
+    }
+
+    /**
+     * Runs depth-first search from the given SCC, forwards through the
+     * SCCs whose position is at most the given bound, or backwards through
+     * the SCCs whose position is at least the given bound, marking them with
+     * the current stamp.
+     * @param s Representative of the SCC to start at.
+     * @param bound Limit on the positions of the SCCs to search.
+     * @param forwards Whether to walk edges forwards or backwards.
+     * @return Representatives of the SCCs reached, s included.
+     */
+    private int [] search(int s, int bound, boolean forwards)
+    {
+        int [] marks = forwards ? this.forwardMarks : this.backwardMarks;
+        int [] reached = new int[16];
+        int size = 0;
+        int top = 0;
+        marks[s] = this.stamp;
+        this.stack[top++] = s;
+        while(top > 0)
+        {
+            int x = this.stack[--top];
+            if(size == reached.length)
+            {
+                reached = Arrays.copyOf(reached, 2 * size);
+            }
+            reached[size++] = x;
+            int e = forwards ? this.firstLeaving[x] : this.firstArriving[x];
+            while(e >= 0)
+            {
+                int w = this.find(forwards ? this.edgeHeads[e] :
+                        this.edgeTails[e]);
+                if(w != x && marks[w] != this.stamp &&
+                        (forwards ? this.orders[w] <= bound :
+                                this.orders[w] >= bound))
+                {
+                    marks[w] = this.stamp;
+                    this.stack[top++] = w;
+                }
+                e = forwards ? this.nextLeaving[e] : this.nextArriving[e];
+            }
+        }
+        return Arrays.copyOf(reached, size);
+    }
+
+    /**
+     * Reassigns the positions of the SCCs reached by the searches of a new
+     * backward edge u -> v: the SCCs reaching u come first, then the ones
+     * both reaching u and reachable from v, which form a cycle with the new
+     * edge and are merged, and then the ones reachable from v. Each group
+     * keeps its relative order and takes the positions the SCCs had.
+     * @param forward Representatives of the SCCs reachable from v.
+     * @param backward Representatives of the SCCs reaching u.
+     */
+    private void reorder(int [] forward, int [] backward)
+    {
+        // Sorts each group by position, the cycle group is taken out of the
+        // forward one
+        int [] cycle = new int[Math.min(forward.length, backward.length)];
+        int cycleSize = 0;
+        int [] before = new int[backward.length];
+        int beforeSize = 0;
+        for(int x : backward)
+        {
+            if(this.forwardMarks[x] == this.stamp) { cycle[cycleSize++] = x; }
+            else { before[beforeSize++] = x; }
+        }
+        int [] after = new int[forward.length];
+        int afterSize = 0;
+        for(int x : forward)
+        {
+            if(this.backwardMarks[x] != this.stamp) { after[afterSize++] = x; }
+        }
+        int [] sequence = new int[beforeSize + cycleSize + afterSize];
+        int k = this.sortByOrder(before, beforeSize, sequence, 0);
+        k = this.sortByOrder(cycle, cycleSize, sequence, k);
+        this.sortByOrder(after, afterSize, sequence, k);
+
+        // Gives the sorted positions of all of them to the sequence
+        int [] slots = new int[sequence.length];
+        for(int i = 0; i < sequence.length; i++)
+        {
+            slots[i] = this.orders[sequence[i]];
+        }
+        Arrays.sort(slots);
+        for(int i = 0; i < sequence.length; i++)
+        {
+            this.orders[sequence[i]] = slots[i];
+            this.ordered[slots[i]] = sequence[i];
+        }
+
+        if(cycleSize > 1)
+        {
+            this.merge(cycle, 0, cycleSize);
+        }
+    }
+
+    /**
+     * Sorts again the SCCs with positions in the given region, after adding
+     * edges that go backwards only within it, by running Tarjan's algorithm
+     * on the edges between them. Tarjan's algorithm finds the new SCCs in
+     * reverse topological order, so they are merged and given the positions
+     * of the region from the last one backwards. Edges from or to SCCs out
+     * of the region go forwards in the order, so they don't need to be
+     * examined.
+     * @param from First position of the region.
+     * @param to Last position of the region.
+     */
+    private void sortRegion(int from, int to)
+    {
+        // Lists the SCCs of the region and their positions in order
+        int [] slots = new int[to - from + 1];
+        int size = 0;
+        for(int i = from; i <= to; i++)
+        {
+            if(this.parents[this.ordered[i]] == this.ordered[i])
+            {
+                slots[size++] = i;
+            }
+        }
+        int [] sequence = new int[size];
+        int last = size;
+
+        // Runs Tarjan's algorithm, forwardMarks tells the SCCs visited and
+        // backwardMarks the ones still in the SCC stack
+        this.stamp++;
+        int index = 0;
+        int sccStackSize = 0;
+        for(int k = 0; k < size; k++)
+        {
+            int s = this.ordered[slots[k]];
+            if(this.forwardMarks[s] == this.stamp)
+            {
+                continue;
+            }
+            int top = 0;
+            this.stack[top] = s;
+            this.cursors[top] = this.firstLeaving[s];
+            this.forwardMarks[s] = this.stamp;
+            this.backwardMarks[s] = this.stamp;
+            this.indexes[s] = this.lowLinks[s] = ++index;
+            this.sccStack[sccStackSize++] = s;
+            while(top >= 0)
+            {
+                int x = this.stack[top];
+                int e = this.cursors[top];
+                if(e >= 0)
+                {
+                    this.cursors[top] = this.nextLeaving[e];
+                    int w = this.find(this.edgeHeads[e]);
+                    if(w == x || this.orders[w] < from ||
+                            this.orders[w] > to)
+                    {
+                        continue;
+                    }
+                    if(this.forwardMarks[w] != this.stamp)
+                    {
+                        // Walks to the unvisited SCC, resuming x later
+                        this.forwardMarks[w] = this.stamp;
+                        this.backwardMarks[w] = this.stamp;
+                        this.indexes[w] = this.lowLinks[w] = ++index;
+                        this.sccStack[sccStackSize++] = w;
+                        top++;
+                        this.stack[top] = w;
+                        this.cursors[top] = this.firstLeaving[w];
+                    }
+                    else if(this.backwardMarks[w] == this.stamp)
+                    {
+                        this.lowLinks[x] = Math.min(this.lowLinks[x],
+                                this.indexes[w]);
+                    }
+                    continue;
+                }
+
+                // Every edge was examined, propagates the low link to parent
+                top--;
+                if(top >= 0)
+                {
+                    int y = this.stack[top];
+                    this.lowLinks[y] = Math.min(this.lowLinks[y],
+                            this.lowLinks[x]);
+                }
+                if(this.lowLinks[x] == this.indexes[x])
+                {
+                    // Pops the new SCC rooted at x, placing it before the
+                    // ones found so far
+                    int first = sccStackSize;
+                    int w;
+                    do
+                    {
+                        w = this.sccStack[--first];
+                        this.backwardMarks[w] = 0;
+                    }
+                    while(w != x);
+                    int members = sccStackSize - first;
+                    last -= members;
+                    System.arraycopy(this.sccStack, first, sequence, last,
+                            members);
+                    sccStackSize = first;
+                    if(members > 1)
+                    {
+                        this.merge(sequence, last, members);
+                    }
+                }
+            }
+        }
+
+        // Gives the positions of the region to the new sequence
+        for(int i = 0; i < size; i++)
+        {
+            this.orders[sequence[i]] = slots[i];
+            this.ordered[slots[i]] = sequence[i];
+        }
+    }
+
+    /**
+     * Copies the given SCCs into the given sequence sorted by position.
+     * @param group Representatives of the SCCs to sort.
+     * @param size Number of SCCs in group.
+     * @param sequence Array to copy the sorted SCCs into.
+     * @param from Position of sequence to start copying at.
+     * @return Position of sequence after the last SCC copied.
+     */
+    private int sortByOrder(int [] group, int size, int [] sequence,
+                            int from)
+    {
+        long [] keys = new long[size];
+        for(int i = 0; i < size; i++)
+        {
+            keys[i] = ((long) this.orders[group[i]] << 32) | group[i];
+        }
+        Arrays.sort(keys);
+        for(int i = 0; i < size; i++)
+        {
+            sequence[from++] = (int) keys[i];
+        }
+        return from;
+    }
+
+    /**
+     * Merges the given SCCs into the largest of them, appending the edge
+     * lists of the others to its own.
+     * @param cycle Array with the representatives of the SCCs to merge.
+     * @param from Position of cycle of the first SCC to merge.
+     * @param size Number of SCCs to merge.
+     */
+    private void merge(int [] cycle, int from, int size)
+    {
+        int r = cycle[from];
+        for(int i = from + 1; i < from + size; i++)
+        {
+            if(this.sizes[cycle[i]] > this.sizes[r]) { r = cycle[i]; }
+        }
+        for(int i = from; i < from + size; i++)
+        {
+            int x = cycle[i];
+            if(x == r) { continue; }
+            this.parents[x] = r;
+            this.sizes[r] += this.sizes[x];
+            this.count--;
+            if(this.firstLeaving[x] >= 0)
+            {
+                if(this.lastLeaving[r] < 0)
+                {
+                    this.firstLeaving[r] = this.firstLeaving[x];
+                }
+                else
+                {
+                    this.nextLeaving[this.lastLeaving[r]] =
+                            this.firstLeaving[x];
+                }
+                this.lastLeaving[r] = this.lastLeaving[x];
+            }
+            if(this.firstArriving[x] >= 0)
+            {
+                if(this.lastArriving[r] < 0)
+                {
+                    this.firstArriving[r] = this.firstArriving[x];
+                }
+                else
+                {
+                    this.nextArriving[this.lastArriving[r]] =
+                            this.firstArriving[x];
+                }
+                this.lastArriving[r] = this.lastArriving[x];
+            }
+        }
+    }
+}
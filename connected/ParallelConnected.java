@@ -0,0 +1,706 @@
+/**
+ * $Id: ParallelConnected.java, v 1.0 17/10/26 10:05 oscarfabra Exp $
+ * {@code ParallelConnected} Is a class used to compute the strongly connected
+ * components of any given graph using several threads. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Class that finds the strongly connected components (SCCs) of a given graph
+ * on a ForkJoinPool. It follows the multistep approach:
+ * <ol>
+ * <li>Trims trivial SCCs, i.e. vertices without predecessors or without
+ * successors.</li>
+ * <li>Runs one forward-backward (FW-BW) search from a high-degree pivot,
+ * which usually finds the giant SCC.</li>
+ * <li>Runs the coloring algorithm on the remaining vertices while there are
+ * many of them: each vertex takes the largest id that reaches it, and the
+ * vertices of each color that reach its root form one SCC.</li>
+ * <li>Runs Tarjan's sequential algorithm on the few remaining vertices.</li>
+ * </ol>
+ * Every step but the last one walks vertex ranges or search frontiers in
+ * parallel.
+ * @see Connected
+ * @see Graph
+ */
+public class ParallelConnected
+{
+    //-------------------------------------------------------------------------
+    // CONSTANTS
+    //-------------------------------------------------------------------------
+
+    // Fewer remaining vertices are solved with Tarjan's sequential algorithm
+    private static final int SEQUENTIAL_THRESHOLD = 4096;
+
+    // Vertex ranges or frontiers with fewer vertices are walked by one thread
+    private static final int CHUNK = 2048;
+
+    // Maximum number of sweeps over the graph trimming trivial SCCs
+    private static final int TRIM_SWEEPS = 3;
+
+    // Color of the vertices left for Tarjan's sequential algorithm
+    private static final int REMAINING = -1;
+
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Graph to examine
+    private final Graph graph;
+
+    // Leader of the SCC of each vertex, 0 if not yet assigned
+    private final int [] leaders;
+
+    // Color of each vertex in the coloring algorithm
+    private final AtomicIntegerArray colors;
+
+    // Marks of the vertices reached forwards from the pivot
+    private final AtomicIntegerArray forward;
+
+    // Marks of the vertices reached backwards from the pivot
+    private final AtomicIntegerArray backward;
+
+    // Number of vertices trimmed in the current sweep
+    private final AtomicInteger trimmed;
+
+    // Last coloring round in which each vertex was queued for propagation
+    private final AtomicIntegerArray queued;
+
+    // Current coloring round
+    private int round;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Creates the shared state to find the SCCs of the given graph.
+     * @param graph Graph to examine.
+     */
+    private ParallelConnected(Graph graph)
+    {
+        int n = graph.getN();
+        this.graph = graph;
+        this.leaders = new int[n + 1];
+        this.colors = new AtomicIntegerArray(n + 1);
+        this.forward = new AtomicIntegerArray(n + 1);
+        this.backward = new AtomicIntegerArray(n + 1);
+        this.trimmed = new AtomicInteger();
+        this.queued = new AtomicIntegerArray(n + 1);
+        this.round = 0;
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC CLASS METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Finds the strongly connected components (SCCs) of the given graph using
+     * the given number of threads.
+     * @param graph Graph to examine.
+     * @param parallelism Number of threads to use, parallelism >= 1.
+     * @return Array with the id of the leader vertex of the SCC of each
+     * vertex, leaders[v] for v in [1...n]. Vertices in the same SCC share
+     * the same leader.
+     */
+    public static int [] findLeaders(Graph graph, int parallelism)
+    {
+        // Trimming and backward searches walk edges backwards
+        graph.buildReverseAdjacencies();
+
+        final ParallelConnected state = new ParallelConnected(graph);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try
+        {
+            pool.invoke(new RecursiveAction()
+            {
+                protected void compute()
+                {
+                    state.solve();
+                }
+            });
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        return state.leaders;
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Runs each of the steps of the multistep approach.
+     * <b>Pre: </b>Runs inside a ForkJoinPool.
+     */
+    private void solve()
+    {
+        // Assigns trivial SCCs
+        for(int sweep = 0; sweep < TRIM_SWEEPS; sweep++)
+        {
+            this.trimmed.set(0);
+            new Trim(this, 1, this.graph.getN() + 1).invoke();
+            if(this.trimmed.get() == 0)
+            {
+                break;
+            }
+        }
+        int [] active = this.unassigned();
+
+        // Finds the SCC of the pivot, likely the giant one
+        if(active.length >= SEQUENTIAL_THRESHOLD)
+        {
+            this.removePivotScc(active);
+            active = this.unassigned(active);
+        }
+
+        // Colors the remaining vertices until few of them are left
+        while(active.length >= SEQUENTIAL_THRESHOLD)
+        {
+            this.removeColoredSccs(active);
+            active = this.unassigned(active);
+        }
+
+        // Finds the SCCs of the remaining vertices sequentially
+        for(int v : active)
+        {
+            this.colors.set(v, REMAINING);
+        }
+        this.tarjan(active);
+    }
+
+    /**
+     * Finds the SCC of a vertex with many predecessors and successors, which
+     * is likely the giant SCC of the graph, using forward-backward search.
+     * @param active Ids of the vertices not yet assigned to an SCC.
+     */
+    private void removePivotScc(int [] active)
+    {
+        // Chooses the vertex with the largest product of degrees as pivot
+        Graph graph = this.graph;
+        int pivot = active[0];
+        long best = -1;
+        for(int v : active)
+        {
+            long degrees = (long) (graph.getHeadsEnd(v) -
+                    graph.getHeadsStart(v)) *
+                    (graph.getTailsEnd(v) - graph.getTailsStart(v));
+            if(degrees > best)
+            {
+                best = degrees;
+                pivot = v;
+            }
+        }
+
+        // The SCC of the pivot is the set of vertices both reached from it
+        // and reaching it
+        this.search(pivot, active.length, this.forward, false);
+        this.search(pivot, active.length, this.backward, true);
+        for(int v : active)
+        {
+            if(this.forward.get(v) != 0 && this.backward.get(v) != 0)
+            {
+                this.leaders[v] = pivot;
+            }
+        }
+    }
+
+    /**
+     * Runs one iteration of the coloring algorithm on the given vertices:
+     * propagates the largest vertex id forwards until no color changes, then
+     * assigns to the SCC of each root the vertices of its color that reach
+     * it. Every root is assigned at least to its own SCC. Each propagation
+     * round only walks the vertices whose color changed in the previous one.
+     * @param active Ids of the vertices not yet assigned to an SCC.
+     */
+    private void removeColoredSccs(int [] active)
+    {
+        for(int v : active)
+        {
+            this.colors.set(v, v);
+        }
+        int [] frontier = Arrays.copyOf(active, active.length);
+        int [] next = new int[active.length];
+        int frontierSize = active.length;
+        AtomicInteger nextSize = new AtomicInteger();
+        while(frontierSize > 0)
+        {
+            this.round++;
+            nextSize.set(0);
+            new Propagate(this, frontier, 0, frontierSize, next, nextSize)
+                    .invoke();
+            int [] aux = frontier;
+            frontier = next;
+            next = aux;
+            frontierSize = nextSize.get();
+        }
+        new Collect(this, active, 0, active.length).invoke();
+    }
+
+    /**
+     * Gets the ids of the vertices of the graph not yet assigned to an SCC.
+     * @return Array with the ids of the unassigned vertices.
+     */
+    private int [] unassigned()
+    {
+        int n = this.graph.getN();
+        int [] vertices = new int[n];
+        int count = 0;
+        for(int v = 1; v <= n; v++)
+        {
+            if(this.leaders[v] == 0) { vertices[count++] = v; }
+        }
+        return Arrays.copyOf(vertices, count);
+    }
+
+    /**
+     * Gets the ids of the given vertices not yet assigned to an SCC.
+     * @param vertices Ids of the vertices to filter.
+     * @return Array with the ids of the unassigned vertices.
+     */
+    private int [] unassigned(int [] vertices)
+    {
+        int count = 0;
+        for(int v : vertices)
+        {
+            if(this.leaders[v] == 0) { count++; }
+        }
+        int [] remaining = new int[count];
+        count = 0;
+        for(int v : vertices)
+        {
+            if(this.leaders[v] == 0) { remaining[count++] = v; }
+        }
+        return remaining;
+    }
+
+    /**
+     * Says whether the given vertex lacks unassigned predecessors or lacks
+     * unassigned successors, i.e. whether it's a trivial SCC. Reading a stale
+     * leader only delays trimming the vertex to a later sweep.
+     * @param vId Id of the vertex to examine.
+     * @return Whether vId can't lie on a cycle of unassigned vertices.
+     */
+    private boolean isTrivial(int vId)
+    {
+        Graph graph = this.graph;
+        boolean hasHead = false;
+        for(int i = graph.getHeadsStart(vId); i < graph.getHeadsEnd(vId); i++)
+        {
+            int wId = graph.getHead(i);
+            if(wId != vId && this.leaders[wId] == 0) { hasHead = true; break; }
+        }
+        if(!hasHead)
+        {
+            return true;
+        }
+        for(int i = graph.getTailsStart(vId); i < graph.getTailsEnd(vId); i++)
+        {
+            int uId = graph.getTail(i);
+            if(uId != vId && this.leaders[uId] == 0) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Runs breadth-first search from the given pivot over the unassigned
+     * vertices, forwards or backwards, marking each reached vertex. Large
+     * frontiers are expanded in parallel.
+     * @param pivot Id of the vertex to start the search at.
+     * @param size Number of unassigned vertices.
+     * @param marks Array on which to mark the reached vertices.
+     * @param backwards Whether to walk edges from head to tail.
+     */
+    private void search(int pivot, int size, AtomicIntegerArray marks,
+                        boolean backwards)
+    {
+        marks.set(pivot, 1);
+        int [] frontier = new int[size];
+        int [] next = new int[size];
+        frontier[0] = pivot;
+        int frontierSize = 1;
+        AtomicInteger nextSize = new AtomicInteger();
+        while(frontierSize > 0)
+        {
+            nextSize.set(0);
+            new Expand(this, frontier, 0, frontierSize, next, nextSize, marks,
+                    backwards).invoke();
+            int [] aux = frontier;
+            frontier = next;
+            next = aux;
+            frontierSize = nextSize.get();
+        }
+    }
+
+    /**
+     * Assigns to the SCC of the given root the vertices of its color that
+     * reach it, walking edges backwards.
+     * @param root Id of a vertex whose color is its own id.
+     * @param queue Auxiliary queue, resized if needed.
+     * @return The given queue or a larger one.
+     */
+    private int [] collect(int root, int [] queue)
+    {
+        Graph graph = this.graph;
+        this.leaders[root] = root;
+        queue[0] = root;
+        int head = 0;
+        int tail = 1;
+        while(head < tail)
+        {
+            int vId = queue[head++];
+            for(int i = graph.getTailsStart(vId); i < graph.getTailsEnd(vId);
+                i++)
+            {
+                int uId = graph.getTail(i);
+                if(this.leaders[uId] == 0 && this.colors.get(uId) == root)
+                {
+                    this.leaders[uId] = root;
+                    if(tail == queue.length)
+                    {
+                        queue = Arrays.copyOf(queue, queue.length * 2);
+                    }
+                    queue[tail++] = uId;
+                }
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Finds the SCCs of the given vertices using Tarjan's sequential
+     * algorithm, only walking edges between them.
+     * <b>Pre: </b>The given vertices have color REMAINING.
+     * @param vertices Ids of the vertices to examine.
+     */
+    private void tarjan(int [] vertices)
+    {
+        Graph graph = this.graph;
+        int size = vertices.length;
+        int [] stack = new int[size];
+        int [] cursors = new int[size];
+        int [] sccStack = new int[size];
+        int sccStackSize = 0;
+        int index = 0;
+
+        // Discovery index and low link of each vertex, the low link is
+        // negated once the vertex has been assigned to an SCC
+        int [] indexes = new int[graph.getN() + 1];
+        int [] lowLinks = new int[graph.getN() + 1];
+
+        for(int sId : vertices)
+        {
+            if(indexes[sId] != 0)
+            {
+                continue;
+            }
+            // Visits the starting vertex and pushes it
+            int top = 0;
+            indexes[sId] = lowLinks[sId] = ++index;
+            sccStack[sccStackSize++] = sId;
+            stack[top] = sId;
+            cursors[top] = graph.getHeadsStart(sId);
+            while(top >= 0)
+            {
+                int vId = stack[top];
+                int i = cursors[top];
+                if(i < graph.getHeadsEnd(vId))
+                {
+                    int wId = graph.getHead(i);
+                    cursors[top] = i + 1;
+                    if(this.colors.get(wId) != REMAINING
+                            || this.leaders[wId] != 0)
+                    {
+                        continue;
+                    }
+                    if(indexes[wId] == 0)
+                    {
+                        // Walks to the unvisited head vertex
+                        indexes[wId] = lowLinks[wId] = ++index;
+                        sccStack[sccStackSize++] = wId;
+                        top++;
+                        stack[top] = wId;
+                        cursors[top] = graph.getHeadsStart(wId);
+                    }
+                    else if(lowLinks[wId] > 0)
+                    {
+                        lowLinks[vId] = Math.min(lowLinks[vId], indexes[wId]);
+                    }
+                }
+                else
+                {
+                    // Propagates the low link and pops vId's SCC if it's root
+                    top--;
+                    if(top >= 0)
+                    {
+                        int uId = stack[top];
+                        lowLinks[uId] = Math.min(lowLinks[uId], lowLinks[vId]);
+                    }
+                    if(lowLinks[vId] == indexes[vId])
+                    {
+                        int wId;
+                        do
+                        {
+                            wId = sccStack[--sccStackSize];
+                            lowLinks[wId] = -lowLinks[wId];
+                            this.leaders[wId] = vId;
+                        }
+                        while(wId != vId);
+                    }
+                }
+            }
+        }
+    }
+
+    //-------------------------------------------------------------------------
+    // TASKS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Task that walks a range of positions, splitting it in halves until it
+     * has at most CHUNK positions.
+     */
+    private abstract static class RangeTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        protected final ParallelConnected state;
+        protected final int from;
+        protected final int to;
+
+        RangeTask(ParallelConnected state, int from, int to)
+        {
+            this.state = state;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute()
+        {
+            if(this.to - this.from > CHUNK)
+            {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(this.slice(this.from, middle),
+                        this.slice(middle, this.to));
+            }
+            else
+            {
+                this.walk();
+            }
+        }
+
+        /**
+         * Creates a task like this one for the given range.
+         * @param from First position of the range.
+         * @param to Position after the last one of the range.
+         * @return Task for the given range.
+         */
+        protected abstract RangeTask slice(int from, int to);
+
+        /**
+         * Walks the range of this task sequentially.
+         */
+        protected abstract void walk();
+    }
+
+    /**
+     * Task that assigns single-vertex SCCs to the trivial vertices in a range
+     * of vertex ids.
+     */
+    private static class Trim extends RangeTask
+    {
+        private static final long serialVersionUID = 1L;
+
+        Trim(ParallelConnected state, int from, int to)
+        {
+            super(state, from, to);
+        }
+
+        protected RangeTask slice(int from, int to)
+        {
+            return new Trim(this.state, from, to);
+        }
+
+        protected void walk()
+        {
+            int count = 0;
+            for(int v = this.from; v < this.to; v++)
+            {
+                if(this.state.leaders[v] == 0 && this.state.isTrivial(v))
+                {
+                    this.state.leaders[v] = v;
+                    count++;
+                }
+            }
+            this.state.trimmed.addAndGet(count);
+        }
+    }
+
+    /**
+     * Task that expands a slice of a breadth-first search frontier, adding
+     * the newly reached unassigned vertices to the next frontier.
+     */
+    private static class Expand extends RangeTask
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int [] frontier;
+        private final int [] next;
+        private final AtomicInteger nextSize;
+        private final AtomicIntegerArray marks;
+        private final boolean backwards;
+
+        Expand(ParallelConnected state, int [] frontier, int from, int to,
+               int [] next, AtomicInteger nextSize, AtomicIntegerArray marks,
+               boolean backwards)
+        {
+            super(state, from, to);
+            this.frontier = frontier;
+            this.next = next;
+            this.nextSize = nextSize;
+            this.marks = marks;
+            this.backwards = backwards;
+        }
+
+        protected RangeTask slice(int from, int to)
+        {
+            return new Expand(this.state, this.frontier, from, to, this.next,
+                    this.nextSize, this.marks, this.backwards);
+        }
+
+        protected void walk()
+        {
+            Graph graph = this.state.graph;
+            for(int k = this.from; k < this.to; k++)
+            {
+                int vId = this.frontier[k];
+                int start = this.backwards ? graph.getTailsStart(vId) :
+                        graph.getHeadsStart(vId);
+                int end = this.backwards ? graph.getTailsEnd(vId) :
+                        graph.getHeadsEnd(vId);
+                for(int i = start; i < end; i++)
+                {
+                    int wId = this.backwards ? graph.getTail(i) :
+                            graph.getHead(i);
+                    // Claims wId if it's unassigned and not reached yet
+                    if(this.state.leaders[wId] == 0
+                            && this.marks.get(wId) == 0
+                            && this.marks.getAndSet(wId, 1) == 0)
+                    {
+                        this.next[this.nextSize.getAndIncrement()] = wId;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Task that pushes the color of each vertex in a slice of a coloring
+     * frontier to its unassigned heads with a smaller color, adding the
+     * raised heads to the next frontier.
+     */
+    private static class Propagate extends RangeTask
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int [] frontier;
+        private final int [] next;
+        private final AtomicInteger nextSize;
+
+        Propagate(ParallelConnected state, int [] frontier, int from, int to,
+                  int [] next, AtomicInteger nextSize)
+        {
+            super(state, from, to);
+            this.frontier = frontier;
+            this.next = next;
+            this.nextSize = nextSize;
+        }
+
+        protected RangeTask slice(int from, int to)
+        {
+            return new Propagate(this.state, this.frontier, from, to,
+                    this.next, this.nextSize);
+        }
+
+        protected void walk()
+        {
+            Graph graph = this.state.graph;
+            AtomicIntegerArray colors = this.state.colors;
+            AtomicIntegerArray queued = this.state.queued;
+            int round = this.state.round;
+            for(int k = this.from; k < this.to; k++)
+            {
+                int vId = this.frontier[k];
+                int color = colors.get(vId);
+                for(int i = graph.getHeadsStart(vId);
+                    i < graph.getHeadsEnd(vId); i++)
+                {
+                    int wId = graph.getHead(i);
+                    if(this.state.leaders[wId] != 0)
+                    {
+                        continue;
+                    }
+                    // Raises wId's color, retrying if another thread raced
+                    int wColor = colors.get(wId);
+                    while(wColor < color
+                            && !colors.compareAndSet(wId, wColor, color))
+                    {
+                        wColor = colors.get(wId);
+                    }
+                    // Queues wId once per round if its color was raised
+                    if(wColor < color && queued.get(wId) != round
+                            && queued.getAndSet(wId, round) != round)
+                    {
+                        this.next[this.nextSize.getAndIncrement()] = wId;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Task that collects the SCC of each root in a slice of the active
+     * vertices.
+     */
+    private static class Collect extends RangeTask
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int [] active;
+
+        Collect(ParallelConnected state, int [] active, int from, int to)
+        {
+            super(state, from, to);
+            this.active = active;
+        }
+
+        protected RangeTask slice(int from, int to)
+        {
+            return new Collect(this.state, this.active, from, to);
+        }
+
+        protected void walk()
+        {
+            int [] queue = new int[16];
+            for(int k = this.from; k < this.to; k++)
+            {
+                int vId = this.active[k];
+                if(this.state.colors.get(vId) == vId)
+                {
+                    queue = this.state.collect(vId, queue);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * $Id: Progress.java, v 1.0 17/10/26 16:00 oscarfabra Exp $
+ * {@code Progress} Is a class that counts the work done by the strongly
+ * connected components algorithms and times their phases. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Class that counts the vertices visited, edges scanned and strongly
+ * connected components (SCCs) found by the algorithms, and times each of
+ * their phases. Counting only updates fields, so the algorithms do no I/O;
+ * the counters can be sampled by a background timer at a fixed interval,
+ * which is disabled until start() is called, or reported once at the end.
+ * Counters are written by the thread running the algorithm and read by the
+ * timer without synchronization, so a sample may be slightly behind.
+ * @see Connected
+ */
+public class Progress
+{
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Number of vertices visited so far
+    private long vertices;
+
+    // Number of edges scanned so far
+    private long edges;
+
+    // Number of SCCs found so far
+    private long sccs;
+
+    // Name of the phase running, null if none
+    private volatile String phase;
+
+    // Time when the phase running started, in nanoseconds
+    private long phaseStart;
+
+    // Total time of each phase run so far, in nanoseconds, in order of start
+    private Map<String, Long> phases;
+
+    // Timer that samples the counters, null if sampling is disabled
+    private Timer timer;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Creates a new set of counters, with sampling disabled.
+     */
+    public Progress()
+    {
+        this.phases = new LinkedHashMap<String, Long>();
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Counts a visited vertex and the edges scanned from it.
+     * @param scanned Number of edges scanned from the vertex.
+     */
+    public void visitVertex(int scanned)
+    {
+        this.vertices++;
+        this.edges += scanned;
+    }
+
+    /**
+     * Counts a new SCC found.
+     */
+    public void addScc()
+    {
+        this.sccs++;
+    }
+
+    /**
+     * Ends the phase running, if any, and starts timing the one with the
+     * given name.
+     * @param name Name of the phase to start.
+     */
+    public void beginPhase(String name)
+    {
+        this.endPhase();
+        this.phaseStart = System.nanoTime();
+        this.phase = name;
+    }
+
+    /**
+     * Ends the phase running, if any, adding its time to its total.
+     */
+    public void endPhase()
+    {
+        if(this.phase == null)
+        {
+            return;
+        }
+        long time = System.nanoTime() - this.phaseStart;
+        Long total = this.phases.get(this.phase);
+        this.phases.put(this.phase, (total == null) ? time : total + time);
+        this.phase = null;
+    }
+
+    /**
+     * Gets the number of vertices visited so far.
+     * @return Number of vertices visited.
+     */
+    public long getVertices()
+    {
+        return this.vertices;
+    }
+
+    /**
+     * Gets the number of edges scanned so far.
+     * @return Number of edges scanned.
+     */
+    public long getEdges()
+    {
+        return this.edges;
+    }
+
+    /**
+     * Gets the number of SCCs found so far.
+     * @return Number of SCCs found.
+     */
+    public long getSccs()
+    {
+        return this.sccs;
+    }
+
+    /**
+     * Gets the total time of the phase with the given name.
+     * @param name Name of the phase to look for.
+     * @return Total time of the phase in nanoseconds, 0 if it never ran.
+     */
+    public long getPhaseTime(String name)
+    {
+        Long total = this.phases.get(name);
+        return (total == null) ? 0 : total;
+    }
+
+    /**
+     * Describes the phase running and the counters in one line.
+     * @return Line with the current values of the counters.
+     */
+    public String sample()
+    {
+        String phase = this.phase;
+        return "[" + ((phase == null) ? "idle" : phase) + "] " +
+                this.vertices + " vertices visited, " + this.edges +
+                " edges scanned, " + this.sccs + " SCCs found.";
+    }
+
+    /**
+     * Starts printing a sample of the counters in the given stream at the
+     * given interval, from a background thread.
+     * @param interval Milliseconds between samples, interval > 0.
+     * @param output Stream to print the samples in.
+     */
+    public void start(long interval, final PrintStream output)
+    {
+        this.stop();
+        this.timer = new Timer("progress", true);
+        this.timer.scheduleAtFixedRate(new TimerTask()
+        {
+            @Override
+            public void run()
+            {
+                output.println(Progress.this.sample());
+            }
+        }, interval, interval);
+    }
+
+    /**
+     * Stops sampling the counters, if it was started.
+     */
+    public void stop()
+    {
+        if(this.timer != null)
+        {
+            this.timer.cancel();
+            this.timer = null;
+        }
+    }
+
+    /**
+     * Prints the counters and the total time of each phase in the given
+     * stream.
+     * @param output Stream to print the report in.
+     */
+    public void report(PrintStream output)
+    {
+        output.println(this.vertices + " vertices visited, " + this.edges +
+                " edges scanned, " + this.sccs + " SCCs found.");
+        for(Map.Entry<String, Long> entry : this.phases.entrySet())
+        {
+            output.printf("-- %s: %.1f ms%n", entry.getKey(),
+                    entry.getValue() / 1e6);
+        }
+    }
+
+    /**
+     * Sets every counter and phase time back to zero.
+     */
+    public void reset()
+    {
+        this.vertices = 0;
+        this.edges = 0;
+        this.sccs = 0;
+        this.phase = null;
+        this.phases.clear();
+    }
+}
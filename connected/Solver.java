@@ -4,18 +4,12 @@
  * strongly connected components of a given directed graph.
  *
  * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
- * @version 1.0
+ * @version 1.3
  * @since 11/06/14
  */
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Vector;
 
 /**
  * Class that reads and solves a file with the parameters for computing
@@ -23,52 +17,75 @@ import java.util.Vector;
  */
 public class Solver
 {
+    //-------------------------------------------------------------------------
+    // CLASS VARIABLE
+    //-------------------------------------------------------------------------
+
+    // Engine used to find the SCCs, obtained from the -engine= argument
+    private static int engine = Connected.KOSARAJU;
+
+    // Number of largest SCCs to report, obtained from the -k= argument
+    private static int k = 5;
+
+    // Whether to show the vertices of the largest SCCs, set by -members
+    private static boolean members = false;
+
+    // Whether to build and describe the condensation, set by -condensation
+    private static boolean condensation = false;
+
+    // Milliseconds between progress samples, obtained from the -progress=
+    // argument, 0 if progress isn't shown
+    private static long interval = 0;
+
     //-------------------------------------------------------------------------
     // PUBLIC METHODS
     //-------------------------------------------------------------------------
 
     /**
      * Solves the given instance and prints the solution in standard output.
-     * @param lines Input list with the variables for the problem.
+     * @param graph Graph read from the input file.
      */
-    private static void solve(List<String> lines)
+    private static void solve(Graph graph)
     {
-        System.out.println("Building endpoints list for each vertex...");
-        Map<Integer, List<Integer>> verticesLeaving = new HashMap<Integer,
-                List<Integer>>();
-        Graph.buildVertexEndpoints(lines, verticesLeaving);
-        System.out.println("...finished building endpoints lists.");
-
-        // Creates a new Graph
-        System.out.println("Building new Graph object...");
-        Graph graph = new Graph(verticesLeaving);
-        System.out.println("...new Graph object built.");
-
-        // Finds its 5 largest SCCs (Strongly connected components)
-        int [] largestSccs = Connected.findLargestSccs(graph);
+        // Finds its SCCs (Strongly connected components) and the sizes of
+        // the k largest ones
+        Components components = Connected.findComponents(graph,
+                Solver.engine);
+        int [] largestSccs = components.getLargestSizes(Solver.k);
 
         // Shows the sizes of the largest SCCs
         System.out.println("The sizes of the largest strongly connected " +
                 "components are: ");
-        for(int i = 0; i < 5; i++)
+        for(int i = 0; i < Solver.k; i++)
         {
             System.out.print(largestSccs[i]);
-            System.out.print((i != 4)?",":".");
+            System.out.print((i != Solver.k - 1)?",":".");
         }
         System.out.println();
 
         // Shows the actual vertices that comprise the obtained SCCs
-        // show(largestSccs);
+        if(Solver.members)
+        {
+            show(components.getLargestMembers(Solver.k));
+        }
+
+        // Shows the size of the DAG of SCCs
+        if(Solver.condensation)
+        {
+            Condensation dag = new Condensation(graph, components);
+            System.out.println("The condensation has " + dag.getN() +
+                    " components and " + dag.getM() + " edges.");
+        }
     }
 
     /**
      * Prints the size and vertices of the given strongly connected components
      * (SCCs). Each SCC corresponds to a list of integers with the vertices
      * that comprise it.
-     * @param largestSccs Array of lists with the corresponding ids of the
+     * @param largestSccs List of lists with the corresponding ids of the
      *                    vertices that comprise each SCC.
      */
-    private static void show(List<Integer>[] largestSccs)
+    private static void show(List<List<Integer>> largestSccs)
     {
         int k = 1;
         for(List<Integer> scc : largestSccs)
@@ -85,15 +102,15 @@ public class Solver
     }
 
     /**
-     * Reads the lines received from standard input and arranges them in a
-     * list.
+     * Reads the graph in the file given in the arguments, streaming it
+     * straight into the graph's arrays. Binary graph files written by
+     * GraphFile are mapped instead of parsed.
      * @param args Array of String with the filepath of the file to read.
-     * @return A list of lines with the data for the problem.
-     * @throws FileNotFoundException If the file couldn't be found.
+     * @return The graph described in the file, null if no file was given.
+     * @throws IOException If the file couldn't be read.
      */
-    private static List<String> readLines(String[] args)  throws FileNotFoundException
+    private static Graph readGraph(String[] args) throws IOException
     {
-        List<String> lines = new Vector<String>();
         String filename = null;
 
         // get the file name
@@ -103,6 +120,30 @@ public class Solver
             {
                 filename = arg.substring(6);
             }
+            else if(arg.equals("-engine=tarjan"))
+            {
+                Solver.engine = Connected.TARJAN;
+            }
+            else if(arg.equals("-engine=parallel"))
+            {
+                Solver.engine = Connected.PARALLEL;
+            }
+            else if(arg.startsWith("-k="))
+            {
+                Solver.k = Integer.parseInt(arg.substring(3));
+            }
+            else if(arg.equals("-members"))
+            {
+                Solver.members = true;
+            }
+            else if(arg.equals("-condensation"))
+            {
+                Solver.condensation = true;
+            }
+            else if(arg.startsWith("-progress="))
+            {
+                Solver.interval = Long.parseLong(arg.substring(10));
+            }
         }
 
         if(filename == null)
@@ -110,23 +151,17 @@ public class Solver
             return null;
         }
 
-        // Reads the lines out of the file
-        FileReader fileReader = new FileReader(filename);
-        BufferedReader input = new BufferedReader(fileReader);
-        String line = null;
-        try
+        // Reads the edges out of the file, sampling progress if asked to
+        Progress progress = Connected.getProgress();
+        if(Solver.interval > 0)
         {
-            while((line = input.readLine()) != null)
-            {
-                lines.add(line);
-            }
+            progress.start(Solver.interval, System.out);
         }
-        catch (IOException e)
-        {
-            e.printStackTrace();
-        }
-
-        return lines;
+        progress.beginPhase("reading graph");
+        Graph graph = GraphFile.isGraphFile(filename) ?
+                GraphFile.read(filename) : EdgeListReader.read(filename);
+        progress.endPhase();
+        return graph;
     }
 
     //-------------------------------------------------------------------------
@@ -136,19 +171,35 @@ public class Solver
     /**
      * Main test method.
      * @param args filepath relative to the file with the representation of a
-     *             directed graph in the form -file=filepath
+     *             directed graph in the form -file=filepath, either a text
+     *             file or a binary one written by GraphFile
+     *             Optionally -engine=tarjan to use Tarjan's single-pass
+     *             algorithm, or -engine=parallel to use the parallel
+     *             forward-backward one, instead of Kosaraju's two-pass one
+     *             Optionally -k=number of largest SCCs to report, 5 by
+     *             default, and -members to show their vertices
+     *             Optionally -condensation to describe the DAG of SCCs
+     *             Optionally -progress=milliseconds to show the work done
+     *             at that interval and the time of each phase at the end
      */
     public static void main(String [] args)
     {
-        List<String> lines = null;
+        Graph graph = null;
         try
         {
-            lines = Solver.readLines(args);
+            graph = Solver.readGraph(args);
         }
-        catch (FileNotFoundException e)
+        catch (IOException e)
         {
             e.printStackTrace();
         }
-        Solver.solve(lines);
+        Solver.solve(graph);
+
+        // Shows the counters and the time of each phase
+        if(Solver.interval > 0)
+        {
+            Connected.getProgress().stop();
+            Connected.getProgress().report(System.out);
+        }
     }
 }
@@ -0,0 +1,317 @@
+/**
+ * $Id: AdjacencyListReader.java, v 1.0 17/10/26 21:00 oscarfabra Exp $
+ * {@code AdjacencyListReader} Is a class that builds a directed graph with
+ * edge lengths from a file with the edges leaving each vertex. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Class that builds a directed graph with edge lengths from a file with one
+ * line per vertex in the form "v h1,l1 h2,l2 ...", meaning vertex v has an
+ * edge of length l1 to h1, one of length l2 to h2 and so on. Numbers may be
+ * separated by tabs or spaces, and each head from its length by a comma
+ * only. Any other character, a sign, a vertex id 0 or an edge without its
+ * length is reported with its byte offset instead of being skipped. The
+ * file is memory-mapped and parsed byte by byte twice: the first pass
+ * counts the out-degree of each vertex, the second one places the head and
+ * length of each edge directly in the CSR arrays of the graph. No String or
+ * Edge is created per edge, and lines needn't be sorted by vertex.
+ * @see Graph
+ */
+public class AdjacencyListReader
+{
+    //-------------------------------------------------------------------------
+    // CONSTANTS
+    //-------------------------------------------------------------------------
+
+    // Largest region of the file mapped at once
+    private static final long REGION = 1L << 30;
+
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Whether the current pass is the one filling the heads and lengths
+    private boolean filling;
+
+    // Number of vertices seen so far, i.e. largest vertex id
+    private int n;
+
+    // Number of edges seen so far
+    private int m;
+
+    // During the first pass, out-degree of each vertex v in counts[v + 1].
+    // During the second one, next free slot in heads of each vertex v
+    private int [] counts;
+
+    // Head vertex of the edges leaving each vertex, grouped by tail
+    private int [] heads;
+
+    // Length of the edges leaving each vertex, grouped by tail
+    private int [] lengths;
+
+    // Vertex of the line being parsed, -1 if it hasn't been parsed yet
+    private int tail;
+
+    // Head of the edge being parsed, -1 if it hasn't been parsed yet
+    private int head;
+
+    // Whether a comma or a blank came after the last number parsed
+    private boolean comma;
+    private boolean blank;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    private AdjacencyListReader()
+    {
+        this.counts = new int[1024];
+        this.tail = -1;
+        this.head = -1;
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC CLASS METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Reads the file with the given path and builds the graph it describes.
+     * <b>Pre: </b>Each line of the file is in the form "v h1,l1 h2,l2 ..."
+     * with the edges leaving vertex v, v and each head in [1...n], each
+     * length >= 0.
+     * @param filename Path of the file to read.
+     * @return Graph with the edges of the file.
+     * @throws IOException If the file couldn't be read or isn't in the form
+     *                     above, with the byte offset of the first error.
+     */
+    public static Graph read(String filename) throws IOException
+    {
+        AdjacencyListReader reader = new AdjacencyListReader();
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        try
+        {
+            FileChannel channel = file.getChannel();
+
+            // Counts the out-degree of each vertex
+            reader.scan(channel);
+
+            // Turns degrees into offsets, headsStart[v] is the first slot of
+            // v, and fills the heads and lengths arrays
+            int n = reader.n;
+            int [] headsStart = Arrays.copyOf(reader.counts, n + 2);
+            for(int v = 1; v <= n + 1; v++)
+            {
+                headsStart[v] += headsStart[v - 1];
+            }
+            reader.counts = Arrays.copyOf(headsStart, n + 2);
+            reader.heads = new int[reader.m];
+            reader.lengths = new int[reader.m];
+            reader.filling = true;
+            reader.scan(channel);
+
+            return new Graph(n, headsStart, reader.heads, reader.lengths);
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Parses every number in the given channel, handling the first one of
+     * each line as its vertex and the following ones as the head and length
+     * of each of its edges. Numbers may span mapped regions.
+     * @param channel Channel of the file to parse.
+     * @throws IOException If the file couldn't be mapped or isn't in the
+     *                     form "v h1,l1 h2,l2 ...", with the byte offset of
+     *                     the first error.
+     */
+    private void scan(FileChannel channel) throws IOException
+    {
+        long size = channel.size();
+        int number = 0;
+        boolean inNumber = false;
+        long start = 0;
+        for(long position = 0; position < size; position += REGION)
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                    position, Math.min(REGION, size - position));
+            int limit = buffer.limit();
+            for(int i = 0; i < limit; i++)
+            {
+                byte b = buffer.get(i);
+                int digit = b - '0';
+                if(digit >= 0 && digit <= 9)
+                {
+                    if(!inNumber)
+                    {
+                        start = position + i;
+                        inNumber = true;
+                    }
+                    if(number > (Integer.MAX_VALUE - digit) / 10)
+                    {
+                        throw new IOException("Number larger than " +
+                                Integer.MAX_VALUE + " at byte " +
+                                (position + i) + ".");
+                    }
+                    number = number * 10 + digit;
+                    continue;
+                }
+                if(b != ' ' && b != '\t' && b != ',' && b != '\r' &&
+                        b != '\n')
+                {
+                    throw new IOException((b == '-' ? "Negative number" :
+                            "Unexpected character") + " at byte " +
+                            (position + i) + ".");
+                }
+                if(inNumber)
+                {
+                    this.addNumber(number, start);
+                    number = 0;
+                    inNumber = false;
+                }
+                if(b == ',')
+                {
+                    this.addComma(position + i);
+                }
+                else if(b == '\n')
+                {
+                    this.endLine(position + i);
+                }
+                else
+                {
+                    this.blank = true;
+                }
+            }
+        }
+        if(inNumber)
+        {
+            this.addNumber(number, start);
+        }
+        this.endLine(size);
+    }
+
+    /**
+     * Handles the given number as the vertex of the line, or as the head of
+     * a new edge leaving it, or as the length of the edge whose head was the
+     * previous number, checking it is separated from the previous number as
+     * the form "v h1,l1 h2,l2 ..." requires.
+     * @param number Vertex id or length parsed.
+     * @param offset Position of the first byte of the number in the file.
+     * @throws IOException If the number is a vertex id 0, or isn't separated
+     *                     by a comma from the head before it, or by a blank
+     *                     from the vertex or length before it.
+     */
+    private void addNumber(int number, long offset) throws IOException
+    {
+        boolean comma = this.comma;
+        this.comma = false;
+        this.blank = false;
+        if(this.tail < 0 || this.head < 0)
+        {
+            if(comma)
+            {
+                throw new IOException("Unexpected ',' before byte " +
+                        offset + ".");
+            }
+            if(number == 0)
+            {
+                throw new IOException("Vertex id 0 at byte " + offset + ".");
+            }
+        }
+        if(this.tail < 0)
+        {
+            this.tail = number;
+            if(!this.filling)
+            {
+                this.grow(number);
+            }
+            return;
+        }
+        if(this.head < 0)
+        {
+            this.head = number;
+            return;
+        }
+        if(!comma)
+        {
+            throw new IOException("Missing ',' between head and length " +
+                    "before byte " + offset + ".");
+        }
+        if(this.filling)
+        {
+            int slot = this.counts[this.tail]++;
+            this.heads[slot] = this.head;
+            this.lengths[slot] = number;
+        }
+        else
+        {
+            this.grow(this.head);
+            this.counts[this.tail + 1]++;
+            this.m++;
+        }
+        this.head = -1;
+    }
+
+    /**
+     * Handles a comma, which may only go right after the head of an edge.
+     * @param offset Position of the comma in the file.
+     * @throws IOException If the comma doesn't go right after a head.
+     */
+    private void addComma(long offset) throws IOException
+    {
+        if(this.head < 0 || this.comma || this.blank)
+        {
+            throw new IOException("Unexpected ',' at byte " + offset + ".");
+        }
+        this.comma = true;
+    }
+
+    /**
+     * Handles the end of a line, which may not leave an edge without its
+     * length.
+     * @param offset Position of the line break, or size of the file at its
+     *               end.
+     * @throws IOException If the line ends in a head or a comma.
+     */
+    private void endLine(long offset) throws IOException
+    {
+        if(this.head >= 0)
+        {
+            throw new IOException("Edge without length at byte " + offset +
+                    ".");
+        }
+        this.tail = -1;
+        this.comma = false;
+        this.blank = false;
+    }
+
+    /**
+     * Grows the degrees array so the given vertex fits in it, and counts it
+     * in the number of vertices.
+     * @param v Id of a vertex seen.
+     */
+    private void grow(int v)
+    {
+        if(v + 2 > this.counts.length)
+        {
+            this.counts = Arrays.copyOf(this.counts,
+                    Math.max(v + 2, this.counts.length * 2));
+        }
+        this.n = Math.max(this.n, v);
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * $Id: BatchDijkstra.java, v 1.0 17/10/26 19:55 oscarfabra Exp $
+ * {@code BatchDijkstra} Is a class that solves Dijkstra's shortest path
+ * algorithm from many sources on the same graph using several threads. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class that solves Dijkstra's shortest path algorithm from each of a batch
+ * of sources on the same graph, fanning the sources out over a ForkJoinPool.
+ * The graph is only read, and each thread works with a search taken from a
+ * SearchPool, so no state is shared between the queries running at once.
+ * The distances are either gathered in a matrix with one row per source or
+ * handed row by row to a RowHandler as they are found, which keeps memory
+ * bounded for large batches.
+ * @see DijkstraSearch
+ * @see SearchPool
+ */
+public class BatchDijkstra
+{
+    //-------------------------------------------------------------------------
+    // CONSTANTS
+    //-------------------------------------------------------------------------
+
+    // Number of ranges of sources per thread, so threads finishing early
+    // can take ranges from the others
+    private static final int RANGES_PER_THREAD = 4;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    private BatchDijkstra(){}   // This class shouldn't be instantiated
+
+    //-------------------------------------------------------------------------
+    // PUBLIC CLASS METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Solves Dijkstra's shortest path algorithm from each of the given
+     * sources using the given engine and number of threads.
+     * @param graph Graph to search the shortest paths for.
+     * @param sources Ids of the starting vertices in graph.
+     * @param engine Dijkstra.HEAP or Dijkstra.DIAL.
+     * @param parallelism Number of threads to use, parallelism >= 1.
+     * @return Matrix with the shortest distance from sources[i] to the vertex
+     *         with id j + 1 in position [i][j], INFINITY if it isn't
+     *         reachable.
+     */
+    public static int [][] solveAll(Graph graph, int [] sources, int engine,
+                                    int parallelism)
+    {
+        int [][] matrix = new int[sources.length][graph.getN()];
+        BatchDijkstra.run(new SearchPool(graph), sources, engine, parallelism,
+                matrix, null);
+        return matrix;
+    }
+
+    /**
+     * Solves Dijkstra's shortest path algorithm from each of the given
+     * sources using the given engine and number of threads, handing the
+     * distances from each source to the given handler as soon as they are
+     * found. The handler is called from several threads at once, in no
+     * particular order.
+     * @param pool Pool of searches on the graph to search the shortest paths
+     *             for.
+     * @param sources Ids of the starting vertices in graph.
+     * @param engine Dijkstra.HEAP or Dijkstra.DIAL.
+     * @param parallelism Number of threads to use, parallelism >= 1.
+     * @param handler Handler of the distances from each source.
+     */
+    public static void solveAll(SearchPool pool, int [] sources, int engine,
+                                int parallelism, RowHandler handler)
+    {
+        BatchDijkstra.run(pool, sources, engine, parallelism, null, handler);
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Splits the sources in ranges and solves them on a new ForkJoinPool,
+     * writing the distances either in the given matrix or in rows handed to
+     * the given handler.
+     * @param pool Pool of searches on the graph.
+     * @param sources Ids of the starting vertices in graph.
+     * @param engine Dijkstra.HEAP or Dijkstra.DIAL.
+     * @param parallelism Number of threads to use, parallelism >= 1.
+     * @param matrix Matrix where to write the distances, or null.
+     * @param handler Handler of the distances if matrix is null.
+     */
+    private static void run(SearchPool pool, int [] sources, int engine,
+                            int parallelism, int [][] matrix,
+                            RowHandler handler)
+    {
+        if(sources.length == 0)
+        {
+            return;
+        }
+        int ranges = parallelism * RANGES_PER_THREAD;
+        int chunk = Math.max(1, (sources.length + ranges - 1) / ranges);
+        ForkJoinPool threads = new ForkJoinPool(parallelism);
+        try
+        {
+            threads.invoke(new SourcesTask(pool, sources, engine, matrix,
+                    handler, chunk, 0, sources.length));
+        }
+        finally
+        {
+            threads.shutdown();
+        }
+    }
+
+    //-------------------------------------------------------------------------
+    // NESTED CLASSES
+    //-------------------------------------------------------------------------
+
+    /**
+     * Receives the distances from each source of a batch as they are found.
+     */
+    public interface RowHandler
+    {
+        /**
+         * Handles the distances from one source of the batch.
+         * @param index Position of the source in the batch.
+         * @param source Id of the source vertex.
+         * @param paths Shortest distance from source to the vertex with id
+         *              j + 1 in position j, INFINITY if it isn't reachable.
+         *              The array is reused for the next sources, so it must
+         *              be copied to keep it after returning.
+         */
+        void handleRow(int index, int source, int [] paths);
+    }
+
+    /**
+     * Task that solves the sources in a range of positions of the batch,
+     * splitting it in halves while it has more than a chunk of sources.
+     */
+    private static class SourcesTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        // Pool of searches on the graph
+        private final SearchPool pool;
+
+        // Ids of the starting vertices of the batch
+        private final int [] sources;
+
+        // Engine used to find the shortest paths
+        private final int engine;
+
+        // Matrix where to write the distances, null to use the handler
+        private final int [][] matrix;
+
+        // Handler of the distances when there's no matrix
+        private final RowHandler handler;
+
+        // Largest number of sources solved by one task without splitting
+        private final int chunk;
+
+        // First position of the range, inclusive
+        private final int from;
+
+        // Last position of the range, exclusive
+        private final int to;
+
+        /**
+         * Creates a task for the given range of positions of the batch.
+         */
+        private SourcesTask(SearchPool pool, int [] sources, int engine,
+                            int [][] matrix, RowHandler handler, int chunk,
+                            int from, int to)
+        {
+            this.pool = pool;
+            this.sources = sources;
+            this.engine = engine;
+            this.matrix = matrix;
+            this.handler = handler;
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute()
+        {
+            if(this.to - this.from > this.chunk)
+            {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new SourcesTask(this.pool, this.sources, this.engine,
+                                this.matrix, this.handler, this.chunk,
+                                this.from, middle),
+                        new SourcesTask(this.pool, this.sources, this.engine,
+                                this.matrix, this.handler, this.chunk, middle,
+                                this.to));
+                return;
+            }
+            DijkstraSearch search = this.pool.acquire();
+            try
+            {
+                int [] row = (this.matrix == null) ?
+                        new int[search.getGraph().getN()] : null;
+                for(int i = this.from; i < this.to; i++)
+                {
+                    if(this.matrix != null)
+                    {
+                        search.solve(this.sources[i], this.engine,
+                                this.matrix[i]);
+                    }
+                    else
+                    {
+                        search.solve(this.sources[i], this.engine, row);
+                        this.handler.handleRow(i, this.sources[i], row);
+                    }
+                }
+            }
+            finally
+            {
+                this.pool.release(search);
+            }
+        }
+    }
+}
@@ -0,0 +1,681 @@
+/**
+ * $Id: Benchmark.java, v 1.0 17/10/26 17:20 oscarfabra Exp $
+ * {@code Benchmark} Is a class that measures the running time of the
+ * shortest paths engines on a given or synthetic graph.
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.9
+ * @since 17/10/26
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Class that measures the running time of the shortest paths engines on a
+ * graph read from a file or generated at random, checking that all of them
+ * find the same distances, and the point to point queries against solving
+ * from the source.
+ */
+public class Benchmark
+{
+    //-------------------------------------------------------------------------
+    // CONSTANTS
+    //-------------------------------------------------------------------------
+
+    // Number of times each measure is repeated, the best time is reported
+    private static final int RUNS = 3;
+
+    // Number of edges leaving each vertex of a synthetic graph
+    private static final int DEGREE = 8;
+
+    // Number of times each source is queried, on average, through the cache
+    private static final int CACHE_REPEATS = 5;
+
+    // Numbers of edges changed at once when measuring the repairs
+    private static final int [] BATCH_SIZES = {1, 10, 100, 1000, 10000};
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Measures each engine from the given sources, and the binary heap with
+     * long distances, and prints the best time of each one in standard
+     * output, with the number of distances the int engines can't hold.
+     * @param graph Graph to examine.
+     * @param sources Ids of the source vertices of the queries.
+     */
+    private static void measureEngines(Graph graph, int [] sources)
+    {
+        int [] engines = {Dijkstra.HEAP, Dijkstra.DIAL};
+        String [] names = {"binary heap", "dial buckets"};
+        int [][] expected = new int[sources.length][];
+        for(int k = 0; k < engines.length; k++)
+        {
+            long best = Long.MAX_VALUE;
+            for(int run = 0; run < RUNS; run++)
+            {
+                long start = System.nanoTime();
+                for(int i = 0; i < sources.length; i++)
+                {
+                    int [] paths = Dijkstra.solve(sources[i], graph,
+                            engines[k]);
+                    if(expected[i] == null)
+                    {
+                        expected[i] = paths.clone();
+                    }
+                    else if(!Arrays.equals(expected[i], paths))
+                    {
+                        throw new IllegalStateException(names[k] + " found " +
+                                "different distances from " + sources[i]);
+                    }
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.printf("%-13s: %8.1f ms for %d sources%n", names[k],
+                    best / 1e6, sources.length);
+        }
+
+        // The long distances must match wherever the int ones are below
+        // INFINITY, longer paths are the ones the int engines lose
+        long best = Long.MAX_VALUE;
+        long saturated = 0;
+        for(int run = 0; run < RUNS; run++)
+        {
+            saturated = 0;
+            long start = System.nanoTime();
+            for(int i = 0; i < sources.length; i++)
+            {
+                long [] paths = Dijkstra.solveLong(sources[i], graph);
+                for(int v = 0; v < paths.length; v++)
+                {
+                    if(paths[v] < Dijkstra.INFINITY ?
+                            paths[v] != expected[i][v] :
+                            expected[i][v] != Dijkstra.INFINITY)
+                    {
+                        throw new IllegalStateException("The long distances " +
+                                "differ from " + sources[i]);
+                    }
+                    if(paths[v] >= Dijkstra.INFINITY &&
+                            paths[v] != Dijkstra.UNREACHABLE)
+                    {
+                        saturated++;
+                    }
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-13s: %8.1f ms for %d sources, %d distances " +
+                ">= INFINITY%n", "long heap", best / 1e6, sources.length,
+                saturated);
+    }
+
+    /**
+     * Measures the point to point queries from each source to a target and
+     * prints the best time of each kind of query in standard output.
+     * @param graph Graph to examine.
+     * @param sources Ids of the source vertices of the queries.
+     * @param targets Ids of the target vertices, targets[i] goes with
+     *                sources[i].
+     */
+    private static void measureQueries(Graph graph, int [] sources,
+                                       int [] targets)
+    {
+        String [] names = {"full solve", "early exit", "bidirectional"};
+        int [] expected = new int[sources.length];
+        graph.buildReverseAdjacencies();
+        for(int k = 0; k < names.length; k++)
+        {
+            long best = Long.MAX_VALUE;
+            for(int run = 0; run < RUNS; run++)
+            {
+                long start = System.nanoTime();
+                for(int i = 0; i < sources.length; i++)
+                {
+                    int distance;
+                    if(k == 0)
+                    {
+                        distance = Dijkstra.solve(sources[i],
+                                graph)[targets[i] - 1];
+                    }
+                    else if(k == 1)
+                    {
+                        distance = Dijkstra.distance(sources[i], targets[i],
+                                graph);
+                    }
+                    else
+                    {
+                        distance = Dijkstra.distance(sources[i], targets[i],
+                                graph, Dijkstra.BIDIRECTIONAL);
+                    }
+                    if(k == 0)
+                    {
+                        expected[i] = distance;
+                    }
+                    else if(expected[i] != distance)
+                    {
+                        throw new IllegalStateException(names[k] + " found " +
+                                "a different distance from " + sources[i] +
+                                " to " + targets[i]);
+                    }
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.printf("%-13s: %8.1f ms for %d pairs%n", names[k],
+                    best / 1e6, sources.length);
+        }
+    }
+
+    /**
+     * Measures solving all the sources one after the other with a single
+     * reused search and as a batch on the given number of threads, and
+     * prints the best time of each one in standard output.
+     * @param graph Graph to examine.
+     * @param sources Ids of the source vertices of the queries.
+     * @param threads Number of threads of the batch.
+     */
+    private static void measureBatch(Graph graph, int [] sources,
+                                     int threads)
+    {
+        int [][] expected = new int[sources.length][graph.getN()];
+        long best = Long.MAX_VALUE;
+        DijkstraSearch search = new DijkstraSearch(graph);
+        for(int run = 0; run < RUNS; run++)
+        {
+            long start = System.nanoTime();
+            for(int i = 0; i < sources.length; i++)
+            {
+                search.solve(sources[i], Dijkstra.HEAP, expected[i]);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-13s: %8.1f ms for %d sources%n", "one search",
+                best / 1e6, sources.length);
+
+        best = Long.MAX_VALUE;
+        for(int run = 0; run < RUNS; run++)
+        {
+            long start = System.nanoTime();
+            int [][] matrix = BatchDijkstra.solveAll(graph, sources,
+                    Dijkstra.HEAP, threads);
+            best = Math.min(best, System.nanoTime() - start);
+            if(!Arrays.deepEquals(expected, matrix))
+            {
+                throw new IllegalStateException("The batch found different " +
+                        "distances.");
+            }
+        }
+        System.out.printf("%-13s: %8.1f ms for %d sources, %d threads%n",
+                "batch", best / 1e6, sources.length, threads);
+    }
+
+    /**
+     * Measures solving each source with Dijkstra's algorithm and with
+     * delta-stepping on 1, 2, 4... up to the given number of threads, and
+     * prints the best time of each one and its speedup over one thread in
+     * standard output.
+     * @param graph Graph to examine.
+     * @param sources Ids of the source vertices of the queries.
+     * @param threads Largest number of threads to try.
+     * @param delta Width of the buckets.
+     */
+    private static void measureDeltaStepping(Graph graph, int [] sources,
+                                             int threads, int delta)
+    {
+        int [][] expected = new int[sources.length][graph.getN()];
+        long best = Long.MAX_VALUE;
+        DijkstraSearch search = new DijkstraSearch(graph);
+        for(int run = 0; run < RUNS; run++)
+        {
+            long start = System.nanoTime();
+            for(int i = 0; i < sources.length; i++)
+            {
+                search.solve(sources[i], Dijkstra.HEAP, expected[i]);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-13s: %8.1f ms for %d sources%n", "binary heap",
+                best / 1e6, sources.length);
+
+        long single = 0;
+        for(int t = 1; t <= threads; t = (t < threads && t * 2 > threads) ?
+                threads : t * 2)
+        {
+            best = Long.MAX_VALUE;
+            for(int run = 0; run < RUNS; run++)
+            {
+                long start = System.nanoTime();
+                for(int i = 0; i < sources.length; i++)
+                {
+                    int [] paths = DeltaStepping.solve(graph, sources[i],
+                            delta, t);
+                    if(!Arrays.equals(expected[i], paths))
+                    {
+                        throw new IllegalStateException("Delta-stepping " +
+                                "found different distances from " +
+                                sources[i]);
+                    }
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            single = (t == 1) ? best : single;
+            System.out.printf("%-13s: %8.1f ms for %d sources, delta %d, " +
+                    "%d threads, speedup %.2f%n", "delta step",
+                    best / 1e6, sources.length, delta, t,
+                    (double) single / best);
+            if(t == threads)
+            {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Measures repairing the shortest paths from the given source after
+     * batches of random changes of edge lengths against solving them again,
+     * on a copy of the graph, and prints the average time and number of
+     * vertices repaired per batch of each size in standard output.
+     * @param graph Graph to examine.
+     * @param s Id of the source vertex.
+     */
+    private static void measureUpdates(Graph graph, int s)
+    {
+        Graph copy = new Graph(graph);
+        int maxLength = Math.max(1, graph.getMaxLength());
+        DynamicShortestPaths paths = new DynamicShortestPaths(copy, s);
+        Random random = new Random(5);
+        for(int size : BATCH_SIZES)
+        {
+            long repairTime = 0;
+            long solveTime = 0;
+            long repaired = 0;
+            for(int run = 0; run < RUNS; run++)
+            {
+                int [] edges = new int[size];
+                int [] lengths = new int[size];
+                for(int i = 0; i < size; i++)
+                {
+                    edges[i] = random.nextInt(copy.getM());
+                    lengths[i] = random.nextInt(maxLength) + 1;
+                }
+                long start = System.nanoTime();
+                paths.updateLengths(edges, lengths);
+                repairTime += System.nanoTime() - start;
+                repaired += paths.getRepairedCount();
+
+                start = System.nanoTime();
+                int [] expected = Dijkstra.solve(s, copy);
+                solveTime += System.nanoTime() - start;
+                if(!Arrays.equals(expected, paths.getDistances()))
+                {
+                    throw new IllegalStateException("The repair found " +
+                            "different distances from " + s);
+                }
+            }
+            System.out.printf("%-13s: %8.1f ms per batch of %d changes, %d " +
+                    "vertices repaired, %.1f ms to solve again%n", "repair",
+                    repairTime / 1e6 / RUNS, size, repaired / RUNS,
+                    solveTime / 1e6 / RUNS);
+        }
+    }
+
+    /**
+     * Measures answering a stream of queries from the given sources, each
+     * one repeated several times in random order, through a cache of half
+     * the rows with and without compression, and prints the time, hits and
+     * bytes of each one in standard output.
+     * @param graph Graph to examine.
+     * @param sources Ids of the source vertices of the queries.
+     */
+    private static void measureCache(Graph graph, int [] sources)
+    {
+        Random random = new Random(3);
+        int [] queries = new int[sources.length * CACHE_REPEATS];
+        for(int i = 0; i < queries.length; i++)
+        {
+            queries[i] = sources[random.nextInt(sources.length)];
+        }
+        long rowBytes = 4L * graph.getN();
+        long maxBytes = Math.max(1, sources.length / 2) * rowBytes;
+        boolean [] compressions = {false, true};
+        for(boolean compressed : compressions)
+        {
+            DistanceCache cache = new DistanceCache(graph, maxBytes,
+                    compressed);
+            long start = System.nanoTime();
+            for(int s : queries)
+            {
+                cache.solve(s);
+            }
+            long time = System.nanoTime() - start;
+            System.out.printf("%-13s: %8.1f ms for %d queries, %d hits, " +
+                    "%d misses, %d rows in %.1f MB%n", compressed ?
+                    "packed cache" : "cache", time / 1e6, queries.length,
+                    cache.getHits(), cache.getMisses(), cache.size(),
+                    cache.getBytes() / 1e6);
+        }
+    }
+
+    /**
+     * Measures the preprocessing of the given number of landmarks, and the
+     * point to point queries from each source to a target with and without
+     * them, printing the best time and the average number of vertices
+     * settled by each kind of query in standard output.
+     * @param graph Graph to examine.
+     * @param sources Ids of the source vertices of the queries.
+     * @param targets Ids of the target vertices, targets[i] goes with
+     *                sources[i].
+     * @param k Number of landmarks.
+     */
+    private static void measureLandmarks(Graph graph, int [] sources,
+                                         int [] targets, int k)
+    {
+        long start = System.nanoTime();
+        Landmarks landmarks = Landmarks.select(graph, k, 4);
+        System.out.printf("%-13s: %8.1f ms for %d landmarks%n", "landmarks",
+                (System.nanoTime() - start) / 1e6, k);
+
+        String [] names = {"full solve", "early exit", "bidirectional",
+                "alt"};
+        DijkstraSearch search = new DijkstraSearch(graph);
+        int [] expected = new int[sources.length];
+        for(int q = 0; q < names.length; q++)
+        {
+            long best = Long.MAX_VALUE;
+            long settled = 0;
+            for(int run = 0; run < RUNS; run++)
+            {
+                settled = 0;
+                start = System.nanoTime();
+                for(int i = 0; i < sources.length; i++)
+                {
+                    int distance;
+                    if(q == 0)
+                    {
+                        distance = search.solve(sources[i],
+                                Dijkstra.HEAP)[targets[i] - 1];
+                    }
+                    else if(q == 1)
+                    {
+                        distance = search.distance(sources[i], targets[i],
+                                Dijkstra.HEAP);
+                    }
+                    else if(q == 2)
+                    {
+                        distance = search.distance(sources[i], targets[i],
+                                Dijkstra.BIDIRECTIONAL);
+                    }
+                    else
+                    {
+                        distance = search.distance(sources[i], targets[i],
+                                landmarks);
+                    }
+                    settled += search.getSettledCount();
+                    if(q == 0)
+                    {
+                        expected[i] = distance;
+                    }
+                    else if(expected[i] != distance)
+                    {
+                        throw new IllegalStateException(names[q] + " found " +
+                                "a different distance from " + sources[i] +
+                                " to " + targets[i]);
+                    }
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.printf("%-13s: %8.1f ms for %d pairs, %d vertices " +
+                    "settled per query%n", names[q], best / 1e6,
+                    sources.length, settled / sources.length);
+        }
+    }
+
+    /**
+     * Reads the contraction hierarchy of the graph from the file with the
+     * given path, or builds it and writes it there if the file doesn't
+     * exist or was written for another graph, then measures the point to
+     * point queries from each source to a target with and without it,
+     * printing the best time and the average number of vertices settled by
+     * each kind of query in standard output.
+     * @param graph Graph to examine.
+     * @param sources Ids of the source vertices of the queries.
+     * @param targets Ids of the target vertices, targets[i] goes with
+     *                sources[i].
+     * @param filename Path of the file with the hierarchy.
+     * @throws IOException If the hierarchy couldn't be written.
+     */
+    private static void measureHierarchy(Graph graph, int [] sources,
+                                         int [] targets, String filename)
+            throws IOException
+    {
+        ContractionHierarchy hierarchy = null;
+        long start = System.nanoTime();
+        if(new File(filename).exists())
+        {
+            try
+            {
+                hierarchy = ContractionHierarchy.read(filename, graph);
+                System.out.printf("%-13s: %8.1f ms to read %d shortcuts%n",
+                        "hierarchy", (System.nanoTime() - start) / 1e6,
+                        hierarchy.getShortcuts());
+            }
+            catch(IOException e)
+            {
+                System.out.println(e.getMessage());
+            }
+        }
+        if(hierarchy == null)
+        {
+            start = System.nanoTime();
+            hierarchy = ContractionHierarchy.build(graph);
+            System.out.printf("%-13s: %8.1f ms to add %d shortcuts%n",
+                    "hierarchy", (System.nanoTime() - start) / 1e6,
+                    hierarchy.getShortcuts());
+            hierarchy.write(filename);
+        }
+
+        String [] names = {"full solve", "early exit", "hierarchy"};
+        DijkstraSearch search = new DijkstraSearch(graph);
+        int [] expected = new int[sources.length];
+        for(int q = 0; q < names.length; q++)
+        {
+            long best = Long.MAX_VALUE;
+            long settled = 0;
+            for(int run = 0; run < RUNS; run++)
+            {
+                settled = 0;
+                start = System.nanoTime();
+                for(int i = 0; i < sources.length; i++)
+                {
+                    int distance;
+                    if(q == 0)
+                    {
+                        distance = search.solve(sources[i],
+                                Dijkstra.HEAP)[targets[i] - 1];
+                    }
+                    else if(q == 1)
+                    {
+                        distance = search.distance(sources[i], targets[i],
+                                Dijkstra.HEAP);
+                    }
+                    else
+                    {
+                        distance = search.distance(sources[i], targets[i],
+                                hierarchy);
+                    }
+                    settled += search.getSettledCount();
+                    if(q == 0)
+                    {
+                        expected[i] = distance;
+                    }
+                    else if(expected[i] != distance)
+                    {
+                        throw new IllegalStateException(names[q] + " found " +
+                                "a different distance from " + sources[i] +
+                                " to " + targets[i]);
+                    }
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.printf("%-13s: %8.1f ms for %d pairs, %d vertices " +
+                    "settled per query%n", names[q], best / 1e6,
+                    sources.length, settled / sources.length);
+        }
+    }
+
+    /**
+     * Generates a random graph with DEGREE edges leaving each vertex towards
+     * random heads, with random lengths.
+     * @param n Number of vertices of the graph.
+     * @param maxLength Largest length of an edge, lengths are in
+     *                  [1...maxLength].
+     * @param seed Seed for the random generator.
+     * @return Generated graph.
+     */
+    static Graph generateGraph(int n, int maxLength, long seed)
+    {
+        Random random = new Random(seed);
+        int [] headsStart = new int[n + 2];
+        int [] heads = new int[n * DEGREE];
+        int [] lengths = new int[n * DEGREE];
+        for(int v = 1; v <= n; v++)
+        {
+            headsStart[v + 1] = headsStart[v] + DEGREE;
+            for(int i = headsStart[v]; i < headsStart[v + 1]; i++)
+            {
+                heads[i] = random.nextInt(n) + 1;
+                lengths[i] = random.nextInt(maxLength) + 1;
+            }
+        }
+        return new Graph(n, headsStart, heads, lengths);
+    }
+
+    /**
+     * Reads the graph in the file with the given path, either a text file
+     * with the edges leaving each vertex or a binary one.
+     * @param filename Path of the file to read.
+     * @return Graph described in the file.
+     * @throws IOException If the file couldn't be read.
+     */
+    private static Graph readGraph(String filename) throws IOException
+    {
+        if(GraphFile.isGraphFile(filename))
+        {
+            return GraphFile.read(filename);
+        }
+        return AdjacencyListReader.read(filename);
+    }
+
+    //-------------------------------------------------------------------------
+    // MAIN
+    //-------------------------------------------------------------------------
+
+    /**
+     * Main benchmark method.
+     * @param args -file=filepath with a directed graph, or -synthetic=n to
+     *             generate a graph with n vertices and 8n edges
+     *             Optionally -maxLength=l with the largest edge length of a
+     *             synthetic graph, 100 by default, and -sources=q with the
+     *             number of random sources to query, 10 by default, and
+     *             -threads=t with the number of threads of the batch, the
+     *             number of processors by default, and -landmarks=k to
+     *             measure A* queries with k landmarks, and
+     *             -hierarchy=filepath to measure queries on the contraction
+     *             hierarchy kept in that file, built if missing, and
+     *             -delta=d with the width of the buckets of delta-stepping,
+     *             picked from the graph by default
+     * @throws IOException If the given file couldn't be read.
+     */
+    public static void main(String [] args) throws IOException
+    {
+        String filename = null;
+        int n = 0;
+        int maxLength = 100;
+        int count = 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int k = 0;
+        String hierarchy = null;
+        int delta = 0;
+        for(String arg : args)
+        {
+            if(arg.startsWith("-file="))
+            {
+                filename = arg.substring(6);
+            }
+            else if(arg.startsWith("-synthetic="))
+            {
+                n = Integer.parseInt(arg.substring(11));
+            }
+            else if(arg.startsWith("-maxLength="))
+            {
+                maxLength = Integer.parseInt(arg.substring(11));
+            }
+            else if(arg.startsWith("-sources="))
+            {
+                count = Integer.parseInt(arg.substring(9));
+            }
+            else if(arg.startsWith("-threads="))
+            {
+                threads = Integer.parseInt(arg.substring(9));
+            }
+            else if(arg.startsWith("-landmarks="))
+            {
+                k = Integer.parseInt(arg.substring(11));
+            }
+            else if(arg.startsWith("-hierarchy="))
+            {
+                hierarchy = arg.substring(11);
+            }
+            else if(arg.startsWith("-delta="))
+            {
+                delta = Integer.parseInt(arg.substring(7));
+            }
+        }
+        Graph graph = null;
+        if(filename != null)
+        {
+            graph = Benchmark.readGraph(filename);
+        }
+        else if(n > 0)
+        {
+            graph = Benchmark.generateGraph(n, maxLength, 1);
+        }
+        if(graph == null)
+        {
+            System.out.println("Usage: Benchmark -file=filepath | " +
+                    "-synthetic=n [-maxLength=l] [-sources=q] [-threads=t] " +
+                    "[-landmarks=k] [-hierarchy=filepath] [-delta=d]");
+            return;
+        }
+
+        // Picks the sources and the targets of the queries at random
+        Random random = new Random(2);
+        int [] sources = new int[count];
+        int [] targets = new int[count];
+        for(int i = 0; i < count; i++)
+        {
+            sources[i] = random.nextInt(graph.getN()) + 1;
+            targets[i] = random.nextInt(graph.getN()) + 1;
+        }
+        System.out.println("n = " + graph.getN() + ", m = " + graph.getM() +
+                ", largest length = " + graph.getMaxLength());
+        Benchmark.measureEngines(graph, sources);
+        Benchmark.measureQueries(graph, sources, targets);
+        Benchmark.measureBatch(graph, sources, threads);
+        Benchmark.measureDeltaStepping(graph, sources, threads,
+                (delta > 0) ? delta : DeltaStepping.getDelta(graph));
+        Benchmark.measureCache(graph, sources);
+        Benchmark.measureUpdates(graph, sources[0]);
+        if(k > 0)
+        {
+            Benchmark.measureLandmarks(graph, sources, targets, k);
+        }
+        if(hierarchy != null)
+        {
+            Benchmark.measureHierarchy(graph, sources, targets, hierarchy);
+        }
+    }
+}
@@ -0,0 +1,832 @@
+/**
+ * $Id: ContractionHierarchy.java, v 1.0 17/10/26 22:20 oscarfabra Exp $
+ * {@code ContractionHierarchy} Is a class that preprocesses a directed graph
+ * into a contraction hierarchy, so shortest path queries only explore a
+ * small part of it. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Class that preprocesses a directed graph into a contraction hierarchy.
+ * Vertices are contracted one by one, least important first: contracting v
+ * removes it from the graph, adding a shortcut u -> w of length d(u, v) +
+ * d(v, w) for each pair of edges u -> v -> w unless a local Dijkstra search
+ * from u finds a witness path to w that avoids v and is no longer. The
+ * importance of a vertex is the number of shortcuts its contraction would
+ * add minus the number of edges it would remove, plus the number of its
+ * neighbors already contracted, and is updated lazily. The order in which
+ * vertices are contracted is their rank.
+ * <br/>
+ * Every shortest path in the graph has a shortest path of the same length
+ * in the graph plus the shortcuts that first goes up in rank and then down,
+ * so a query searches forwards from s only along edges going up in rank,
+ * and backwards from t only along edges coming down in rank. Those edges
+ * are kept in two CSR graphs: upward, with each edge u -> w where u ranks
+ * below w, and downward, with an edge w -> u for each edge u -> w where w
+ * ranks below u. Both can be written to and read from a file, so the
+ * preprocessing is paid once per graph.
+ * @see DijkstraSearch
+ */
+public class ContractionHierarchy
+{
+    //-------------------------------------------------------------------------
+    // CONSTANTS
+    //-------------------------------------------------------------------------
+
+    // First int of every contraction hierarchy file, "CHIE" in ASCII
+    public static final int MAGIC = 0x43484945;
+
+    // Version of the format written by this class
+    public static final int VERSION = 1;
+
+    // Number of ints in the header: MAGIC, VERSION, n, the fingerprint of
+    // the graph in two ints, and the number of shortcuts
+    private static final int HEADER = 6;
+
+    // Largest number of vertices settled by a witness search when
+    // contracting a vertex
+    private static final int WITNESS_LIMIT = 500;
+
+    // Largest number of vertices settled by a witness search when only
+    // estimating the shortcuts a contraction would add
+    private static final int ESTIMATE_LIMIT = 50;
+
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Rank of each vertex by id, the order in which it was contracted
+    private final int [] ranks;
+
+    // Edges going up in rank, u -> w with ranks[u] < ranks[w]
+    private final Graph upward;
+
+    // Edges coming down in rank, reversed: w -> u for each edge u -> w with
+    // ranks[w] < ranks[u]
+    private final Graph downward;
+
+    // Number of shortcuts added by the contraction
+    private final int shortcuts;
+
+    // Fingerprint of the edges of the graph the hierarchy was built for
+    private final long fingerprint;
+
+    // Version of the graph the hierarchy was built or read for
+    private final int version;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Creates a hierarchy with the given attributes.
+     */
+    private ContractionHierarchy(int [] ranks, Graph upward, Graph downward,
+                                 int shortcuts, long fingerprint, int version)
+    {
+        this.ranks = ranks;
+        this.upward = upward;
+        this.downward = downward;
+        this.shortcuts = shortcuts;
+        this.fingerprint = fingerprint;
+        this.version = version;
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC CLASS METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Builds the contraction hierarchy of the given graph.
+     * @param graph Graph to preprocess.
+     * @return Contraction hierarchy of the graph.
+     */
+    public static ContractionHierarchy build(Graph graph)
+    {
+        Contractor contractor = new Contractor(graph);
+        contractor.contractAll();
+        return new ContractionHierarchy(contractor.ranks,
+                contractor.toGraph(true), contractor.toGraph(false),
+                contractor.shortcuts, ContractionHierarchy.fingerprint(graph),
+                graph.getVersion());
+    }
+
+    /**
+     * Reads the contraction hierarchy of the given graph from the file with
+     * the given path.
+     * @param filename Path of the file to read.
+     * @param graph Graph the hierarchy was built for.
+     * @return Contraction hierarchy of the graph.
+     * @throws IOException If the file couldn't be read, isn't valid or was
+     *                     written for a different graph.
+     */
+    public static ContractionHierarchy read(String filename, Graph graph)
+            throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        try
+        {
+            FileChannel channel = file.getChannel();
+            IntBuffer header = ContractionHierarchy.map(channel, 0, HEADER);
+            if(header.get(0) != MAGIC || header.get(1) != VERSION)
+            {
+                throw new IOException(filename + " isn't a contraction " +
+                        "hierarchy file.");
+            }
+            int n = header.get(2);
+            long fingerprint = ((long) header.get(3) << 32) |
+                    (header.get(4) & 0xFFFFFFFFL);
+            if(n != graph.getN() ||
+                    fingerprint != ContractionHierarchy.fingerprint(graph))
+            {
+                throw new IOException(filename + " was built for a " +
+                        "different graph.");
+            }
+            int shortcuts = header.get(5);
+
+            // Copies each section out of the mapped file
+            long position = HEADER * 4L;
+            int [] ranks = new int[n + 1];
+            ContractionHierarchy.map(channel, position, n).get(ranks, 1, n);
+            position += n * 4L;
+            Graph [] graphs = new Graph[2];
+            for(int k = 0; k < graphs.length; k++)
+            {
+                int m = ContractionHierarchy.map(channel, position, 1).get(0);
+                position += 4;
+                int [] headsStart = new int[n + 2];
+                ContractionHierarchy.map(channel, position, n + 1).get(
+                        headsStart, 1, n + 1);
+                position += (n + 1) * 4L;
+                int [] heads = new int[m];
+                ContractionHierarchy.map(channel, position, m).get(heads);
+                position += m * 4L;
+                int [] lengths = new int[m];
+                ContractionHierarchy.map(channel, position, m).get(lengths);
+                position += m * 4L;
+                graphs[k] = new Graph(n, headsStart, heads, lengths);
+            }
+            return new ContractionHierarchy(ranks, graphs[0], graphs[1],
+                    shortcuts, fingerprint, graph.getVersion());
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Writes this hierarchy to the file with the given path, as a sequence
+     * of big-endian ints: the header, the rank of each vertex, and the
+     * upward and downward graphs, each one as m, n + 1 offsets, m heads and
+     * m lengths.
+     * @param filename Path of the file to write.
+     * @throws IOException If the file couldn't be written.
+     */
+    public void write(String filename) throws IOException
+    {
+        int n = this.upward.getN();
+        DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filename),
+                        1 << 16));
+        try
+        {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(n);
+            output.writeInt((int) (this.fingerprint >>> 32));
+            output.writeInt((int) this.fingerprint);
+            output.writeInt(this.shortcuts);
+            for(int v = 1; v <= n; v++)
+            {
+                output.writeInt(this.ranks[v]);
+            }
+            Graph [] graphs = {this.upward, this.downward};
+            for(Graph graph : graphs)
+            {
+                output.writeInt(graph.getM());
+                for(int v = 1; v <= n + 1; v++)
+                {
+                    output.writeInt(graph.getHeadsStart(v));
+                }
+                for(int i = 0; i < graph.getM(); i++)
+                {
+                    output.writeInt(graph.getHead(i));
+                }
+                for(int i = 0; i < graph.getM(); i++)
+                {
+                    output.writeInt(graph.getLength(i));
+                }
+            }
+        }
+        finally
+        {
+            output.close();
+        }
+    }
+
+    /**
+     * Gets the rank of the vertex with the given id.
+     * @param vId Id of the vertex to look for.
+     * @return Position of the vertex in the contraction order.
+     */
+    public int getRank(int vId)
+    {
+        return this.ranks[vId];
+    }
+
+    /**
+     * Gets the graph with the edges going up in rank.
+     * @return Graph with each edge u -> w where u ranks below w.
+     */
+    public Graph getUpward()
+    {
+        return this.upward;
+    }
+
+    /**
+     * Gets the graph with the edges coming down in rank, reversed.
+     * @return Graph with an edge w -> u for each edge u -> w where w ranks
+     *         below u.
+     */
+    public Graph getDownward()
+    {
+        return this.downward;
+    }
+
+    /**
+     * Gets the number of shortcuts added by the contraction.
+     * @return Number of shortcuts.
+     */
+    public int getShortcuts()
+    {
+        return this.shortcuts;
+    }
+
+    /**
+     * Gets the version of the graph the hierarchy was built or read for.
+     * @return Version of the graph.
+     */
+    public int getVersion()
+    {
+        return this.version;
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Computes a fingerprint of the edges of the given graph, so a
+     * hierarchy read from a file can be checked against it.
+     * @param graph Graph to fingerprint.
+     * @return Hash of the offsets, heads and lengths of the graph.
+     */
+    private static long fingerprint(Graph graph)
+    {
+        long hash = graph.getN();
+        for(int v = 1; v <= graph.getN() + 1; v++)
+        {
+            hash = hash * 31 + graph.getHeadsStart(v);
+        }
+        for(int i = 0; i < graph.getM(); i++)
+        {
+            hash = (hash * 31 + graph.getHead(i)) * 31 + graph.getLength(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Maps read-only the given number of ints of the given channel.
+     * @param channel Channel of the file to map.
+     * @param position Position in bytes of the first int to map.
+     * @param ints Number of ints to map.
+     * @return Big-endian view of the mapped ints.
+     * @throws IOException If the region couldn't be mapped.
+     */
+    private static IntBuffer map(FileChannel channel, long position, int ints)
+            throws IOException
+    {
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                position, ints * 4L);
+        return buffer.asIntBuffer();
+    }
+
+    //-------------------------------------------------------------------------
+    // NESTED CLASSES
+    //-------------------------------------------------------------------------
+
+    /**
+     * State of the contraction of a graph: the edges leaving and arriving at
+     * each vertex, including shortcuts, in growable arrays; the vertices
+     * contracted so far; and a reusable local Dijkstra search for witnesses.
+     */
+    private static class Contractor
+    {
+        // Number of vertices
+        private final int n;
+
+        // Heads and lengths of the edges leaving each vertex, and how many
+        private final int [][] outHeads;
+        private final int [][] outLengths;
+        private final int [] outSizes;
+
+        // Tails and lengths of the edges arriving at each vertex, and how
+        // many
+        private final int [][] inTails;
+        private final int [][] inLengths;
+        private final int [] inSizes;
+
+        // Rank of each vertex, 0 until it is contracted
+        private final int [] ranks;
+
+        // Whether each vertex has been contracted
+        private final boolean [] contracted;
+
+        // Number of neighbors of each vertex already contracted
+        private final int [] deletedNeighbors;
+
+        // Number of shortcuts added
+        private int shortcuts;
+
+        // Tentative distance of each vertex in the witness search, INFINITY
+        // if not reached
+        private final int [] witnessDistances;
+
+        // Ids of the vertices reached by the witness search, and how many
+        private final int [] witnessReached;
+        private int witnessReachedCount;
+
+        // Heap of the witness search
+        private final IndexedHeap witnessHeap;
+
+        // Id of the vertex being contracted for the heads of its edges, so
+        // a witness search stops once it has settled all of them
+        private final int [] targetOf;
+
+        // Tails, heads and lengths of the shortcuts found for the vertex
+        // being contracted, and how many
+        private int [] pendingTails;
+        private int [] pendingHeads;
+        private int [] pendingLengths;
+        private int pendingCount;
+
+        /**
+         * Copies the edges of the given graph, skipping loops.
+         * @param graph Graph to contract.
+         */
+        private Contractor(Graph graph)
+        {
+            int n = graph.getN();
+            this.n = n;
+            this.outHeads = new int[n + 1][];
+            this.outLengths = new int[n + 1][];
+            this.outSizes = new int[n + 1];
+            this.inTails = new int[n + 1][];
+            this.inLengths = new int[n + 1][];
+            this.inSizes = new int[n + 1];
+            int [] inDegrees = new int[n + 1];
+            for(int i = 0; i < graph.getM(); i++)
+            {
+                inDegrees[graph.getHead(i)]++;
+            }
+            for(int v = 1; v <= n; v++)
+            {
+                int degree = graph.getHeadsEnd(v) - graph.getHeadsStart(v);
+                this.outHeads[v] = new int[Math.max(2, degree)];
+                this.outLengths[v] = new int[Math.max(2, degree)];
+                this.inTails[v] = new int[Math.max(2, inDegrees[v])];
+                this.inLengths[v] = new int[Math.max(2, inDegrees[v])];
+            }
+            for(int u = 1; u <= n; u++)
+            {
+                for(int i = graph.getHeadsStart(u); i < graph.getHeadsEnd(u);
+                    i++)
+                {
+                    int w = graph.getHead(i);
+                    if(w != u)
+                    {
+                        this.addEdge(u, w, graph.getLength(i), false);
+                    }
+                }
+            }
+            this.ranks = new int[n + 1];
+            this.contracted = new boolean[n + 1];
+            this.deletedNeighbors = new int[n + 1];
+            this.witnessDistances = new int[n + 1];
+            Arrays.fill(this.witnessDistances, Dijkstra.INFINITY);
+            this.witnessReached = new int[n];
+            this.witnessHeap = new IndexedHeap(n);
+            this.targetOf = new int[n + 1];
+            this.pendingTails = new int[16];
+            this.pendingHeads = new int[16];
+            this.pendingLengths = new int[16];
+        }
+
+        /**
+         * Contracts every vertex, least important first, assigning ranks.
+         */
+        private void contractAll()
+        {
+            IndexedHeap order = new IndexedHeap(this.n);
+            for(int v = 1; v <= this.n; v++)
+            {
+                order.insert(v, this.priority(v));
+            }
+            int rank = 0;
+            while(!order.isEmpty())
+            {
+                // Recomputes the priority of the least important vertex,
+                // which may have grown since, and puts it back if it isn't
+                // the least important anymore
+                int v = order.extractMin();
+                long priority = this.priority(v);
+                if(!order.isEmpty() &&
+                        priority > order.getKey(order.peek()))
+                {
+                    order.insert(v, priority);
+                    continue;
+                }
+                this.contract(v, false);
+                this.contracted[v] = true;
+                this.ranks[v] = ++rank;
+                this.detach(v);
+
+                // Updates the priority of the neighbors left
+                for(int i = 0; i < this.outSizes[v]; i++)
+                {
+                    this.updateNeighbor(order, this.outHeads[v][i]);
+                }
+                for(int i = 0; i < this.inSizes[v]; i++)
+                {
+                    this.updateNeighbor(order, this.inTails[v][i]);
+                }
+            }
+        }
+
+        /**
+         * Removes the edges between the given vertex, just contracted, and
+         * the vertices left from the lists of the latter, so later searches
+         * don't go through them. The lists of the vertex itself are kept, as
+         * they hold its edges going up in rank.
+         * @param v Id of the vertex contracted.
+         */
+        private void detach(int v)
+        {
+            for(int i = 0; i < this.outSizes[v]; i++)
+            {
+                int w = this.outHeads[v][i];
+                int [] tails = this.inTails[w];
+                for(int j = 0; j < this.inSizes[w]; j++)
+                {
+                    if(tails[j] == v)
+                    {
+                        int last = --this.inSizes[w];
+                        tails[j] = tails[last];
+                        this.inLengths[w][j] = this.inLengths[w][last];
+                        break;
+                    }
+                }
+            }
+            for(int i = 0; i < this.inSizes[v]; i++)
+            {
+                int u = this.inTails[v][i];
+                int [] heads = this.outHeads[u];
+                for(int j = 0; j < this.outSizes[u]; j++)
+                {
+                    if(heads[j] == v)
+                    {
+                        int last = --this.outSizes[u];
+                        heads[j] = heads[last];
+                        this.outLengths[u][j] = this.outLengths[u][last];
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Counts a contracted neighbor of the given vertex and raises its
+         * priority by one, if it hasn't been contracted yet. The shortcuts
+         * it needs aren't estimated again until it reaches the top of the
+         * heap, since doing it for every neighbor of every vertex contracted
+         * costs more than the rest of the contraction.
+         * @param order Heap of the vertices not yet contracted.
+         * @param u Id of the neighbor.
+         */
+        private void updateNeighbor(IndexedHeap order, int u)
+        {
+            if(this.contracted[u] || !order.contains(u))
+            {
+                return;
+            }
+            this.deletedNeighbors[u]++;
+            order.updateKey(u, order.getKey(u) + 1);
+        }
+
+        /**
+         * Estimates how important the given vertex is: the shortcuts its
+         * contraction would add minus the edges it would remove, plus its
+         * neighbors already contracted.
+         * @param v Id of the vertex.
+         * @return Priority of the vertex, smaller is contracted first.
+         */
+        private long priority(int v)
+        {
+            int removed = 0;
+            for(int i = 0; i < this.outSizes[v]; i++)
+            {
+                removed += this.contracted[this.outHeads[v][i]] ? 0 : 1;
+            }
+            for(int i = 0; i < this.inSizes[v]; i++)
+            {
+                removed += this.contracted[this.inTails[v][i]] ? 0 : 1;
+            }
+            return this.contract(v, true) - removed +
+                    this.deletedNeighbors[v];
+        }
+
+        /**
+         * Finds the shortcuts needed to contract the given vertex, and adds
+         * them unless only estimating.
+         * @param v Id of the vertex to contract.
+         * @param estimate Whether to only count the shortcuts, with a
+         *                 cheaper witness search.
+         * @return Number of shortcuts needed.
+         */
+        private int contract(int v, boolean estimate)
+        {
+            // Longest edge leaving v towards a vertex left, and how many
+            // different vertices those edges reach
+            int maxOut = 0;
+            int targets = 0;
+            for(int j = 0; j < this.outSizes[v]; j++)
+            {
+                int w = this.outHeads[v][j];
+                if(!this.contracted[w])
+                {
+                    maxOut = Math.max(maxOut, this.outLengths[v][j]);
+                    if(this.targetOf[w] != v)
+                    {
+                        this.targetOf[w] = v;
+                        targets++;
+                    }
+                }
+            }
+            int needed = 0;
+            this.pendingCount = 0;
+            for(int i = 0; i < this.inSizes[v]; i++)
+            {
+                int u = this.inTails[v][i];
+                if(this.contracted[u])
+                {
+                    continue;
+                }
+                int uv = this.inLengths[v][i];
+                this.searchWitnesses(u, v, Dijkstra.add(uv, maxOut),
+                        targets - ((this.targetOf[u] == v) ? 1 : 0),
+                        estimate ? ESTIMATE_LIMIT : WITNESS_LIMIT);
+                for(int j = 0; j < this.outSizes[v]; j++)
+                {
+                    int w = this.outHeads[v][j];
+                    if(this.contracted[w] || w == u)
+                    {
+                        continue;
+                    }
+                    int uvw = Dijkstra.add(uv, this.outLengths[v][j]);
+                    if(this.witnessDistances[w] > uvw)
+                    {
+                        needed++;
+                        if(!estimate)
+                        {
+                            this.addPending(u, w, uvw);
+                        }
+                    }
+                }
+                this.resetWitnesses();
+            }
+            for(int k = 0; k < this.pendingCount; k++)
+            {
+                this.addEdge(this.pendingTails[k], this.pendingHeads[k],
+                        this.pendingLengths[k], true);
+            }
+            return needed;
+        }
+
+        /**
+         * Runs Dijkstra's algorithm from the given vertex over the vertices
+         * not yet contracted, avoiding the given one, until the distances
+         * exceed the given bound, the given number of heads of the edges
+         * leaving the avoided vertex are settled or too many vertices are
+         * settled. Leaves
+         * the tentative distances, lengths of real paths, in
+         * witnessDistances.
+         * @param source Id of the starting vertex.
+         * @param avoid Id of the vertex being contracted.
+         * @param bound Largest distance of interest.
+         * @param targets Number of heads of the edges leaving the avoided
+         *                vertex, besides the source, left to settle.
+         * @param limit Largest number of vertices to settle.
+         */
+        private void searchWitnesses(int source, int avoid, int bound,
+                                     int targets, int limit)
+        {
+            this.reachWitness(source, 0);
+            int settled = 0;
+            while(!this.witnessHeap.isEmpty())
+            {
+                int w = this.witnessHeap.extractMin();
+                int d = this.witnessDistances[w];
+                if(d > bound || ++settled > limit)
+                {
+                    break;
+                }
+                if(w != source && this.targetOf[w] == avoid && --targets == 0)
+                {
+                    break;
+                }
+                for(int j = 0; j < this.outSizes[w]; j++)
+                {
+                    int x = this.outHeads[w][j];
+                    if(x != avoid && !this.contracted[x])
+                    {
+                        this.reachWitness(x, Dijkstra.add(d,
+                                this.outLengths[w][j]));
+                    }
+                }
+            }
+            this.witnessHeap.clear();
+        }
+
+        /**
+         * Lowers the tentative distance of the given vertex in the witness
+         * search to the given score if it is smaller.
+         * @param x Id of the vertex reached.
+         * @param score Length of the path that reaches it.
+         */
+        private void reachWitness(int x, int score)
+        {
+            if(score >= this.witnessDistances[x])
+            {
+                return;
+            }
+            if(this.witnessDistances[x] == Dijkstra.INFINITY)
+            {
+                this.witnessReached[this.witnessReachedCount++] = x;
+            }
+            this.witnessDistances[x] = score;
+            if(this.witnessHeap.contains(x))
+            {
+                this.witnessHeap.decreaseKey(x, score);
+            }
+            else
+            {
+                this.witnessHeap.insert(x, score);
+            }
+        }
+
+        /**
+         * Sets every vertex reached by the witness search back to not
+         * reached.
+         */
+        private void resetWitnesses()
+        {
+            for(int i = 0; i < this.witnessReachedCount; i++)
+            {
+                this.witnessDistances[this.witnessReached[i]] =
+                        Dijkstra.INFINITY;
+            }
+            this.witnessReachedCount = 0;
+        }
+
+        /**
+         * Remembers a shortcut to add once the witness searches of the
+         * vertex being contracted are done.
+         * @param u Id of the tail of the shortcut.
+         * @param w Id of the head of the shortcut.
+         * @param length Length of the shortcut.
+         */
+        private void addPending(int u, int w, int length)
+        {
+            if(this.pendingCount == this.pendingTails.length)
+            {
+                int size = this.pendingCount * 2;
+                this.pendingTails = Arrays.copyOf(this.pendingTails, size);
+                this.pendingHeads = Arrays.copyOf(this.pendingHeads, size);
+                this.pendingLengths = Arrays.copyOf(this.pendingLengths,
+                        size);
+            }
+            this.pendingTails[this.pendingCount] = u;
+            this.pendingHeads[this.pendingCount] = w;
+            this.pendingLengths[this.pendingCount++] = length;
+        }
+
+        /**
+         * Adds an edge from u to w with the given length. A shortcut
+         * parallel to an existing edge only lowers its length if smaller.
+         * @param u Id of the tail of the edge.
+         * @param w Id of the head of the edge.
+         * @param length Length of the edge.
+         * @param shortcut Whether the edge is a shortcut.
+         */
+        private void addEdge(int u, int w, int length, boolean shortcut)
+        {
+            if(shortcut)
+            {
+                for(int i = 0; i < this.outSizes[u]; i++)
+                {
+                    if(this.outHeads[u][i] != w)
+                    {
+                        continue;
+                    }
+                    if(length < this.outLengths[u][i])
+                    {
+                        this.outLengths[u][i] = length;
+                        for(int j = 0; j < this.inSizes[w]; j++)
+                        {
+                            if(this.inTails[w][j] == u)
+                            {
+                                this.inLengths[w][j] = Math.min(
+                                        this.inLengths[w][j], length);
+                            }
+                        }
+                    }
+                    return;
+                }
+                this.shortcuts++;
+            }
+            if(this.outSizes[u] == this.outHeads[u].length)
+            {
+                int size = this.outSizes[u] * 2;
+                this.outHeads[u] = Arrays.copyOf(this.outHeads[u], size);
+                this.outLengths[u] = Arrays.copyOf(this.outLengths[u], size);
+            }
+            this.outHeads[u][this.outSizes[u]] = w;
+            this.outLengths[u][this.outSizes[u]++] = length;
+            if(this.inSizes[w] == this.inTails[w].length)
+            {
+                int size = this.inSizes[w] * 2;
+                this.inTails[w] = Arrays.copyOf(this.inTails[w], size);
+                this.inLengths[w] = Arrays.copyOf(this.inLengths[w], size);
+            }
+            this.inTails[w][this.inSizes[w]] = u;
+            this.inLengths[w][this.inSizes[w]++] = length;
+        }
+
+        /**
+         * Builds the CSR graph with the edges going up in rank, or with the
+         * edges coming down in rank reversed.
+         * @param upward Whether to build the upward graph.
+         * @return Upward or downward graph.
+         */
+        private Graph toGraph(boolean upward)
+        {
+            int [][] heads = upward ? this.outHeads : this.inTails;
+            int [][] lengths = upward ? this.outLengths : this.inLengths;
+            int [] sizes = upward ? this.outSizes : this.inSizes;
+            int [] headsStart = new int[this.n + 2];
+            for(int v = 1; v <= this.n; v++)
+            {
+                int degree = 0;
+                for(int i = 0; i < sizes[v]; i++)
+                {
+                    degree += (this.ranks[heads[v][i]] > this.ranks[v]) ? 1 :
+                            0;
+                }
+                headsStart[v + 1] = headsStart[v] + degree;
+            }
+            int [] csrHeads = new int[headsStart[this.n + 1]];
+            int [] csrLengths = new int[csrHeads.length];
+            for(int v = 1; v <= this.n; v++)
+            {
+                int j = headsStart[v];
+                for(int i = 0; i < sizes[v]; i++)
+                {
+                    if(this.ranks[heads[v][i]] > this.ranks[v])
+                    {
+                        csrHeads[j] = heads[v][i];
+                        csrLengths[j++] = lengths[v][i];
+                    }
+                }
+            }
+            return new Graph(this.n, headsStart, csrHeads, csrLengths);
+        }
+    }
+}
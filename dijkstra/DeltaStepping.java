@@ -0,0 +1,402 @@
+/**
+ * $Id: DeltaStepping.java, v 1.0 17/10/26 23:10 oscarfabra Exp $
+ * {@code DeltaStepping} Is a class that solves the single source shortest
+ * paths problem on a directed graph using several threads. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Class that solves the single source shortest paths problem with Meyer and
+ * Sanders' delta-stepping algorithm, which finds the same distances as
+ * Dijkstra's algorithm but settles many vertices at once. Reached vertices
+ * are kept in buckets of width delta, bucket i holding the ones whose score
+ * is in [i delta...(i + 1) delta - 1]. The smallest bucket not yet empty is
+ * settled in phases: each phase takes every vertex out of it and relaxes
+ * their light edges, of length <= delta, which may put vertices back into
+ * the same bucket for another phase; once it stays empty, the heavy edges
+ * of every vertex taken out of it are relaxed, which only reach later
+ * buckets. The vertices of a phase are relaxed in parallel on a
+ * ForkJoinPool, lowering tentative distances with compare-and-set, so a
+ * score is only ever replaced by a smaller one whatever the order of the
+ * threads. A small delta makes it behave like Dijkstra's algorithm with few
+ * vertices per phase, a large one like Bellman-Ford with many vertices
+ * relaxed more than once.
+ * @see Dijkstra
+ */
+public class DeltaStepping
+{
+    //-------------------------------------------------------------------------
+    // CONSTANTS
+    //-------------------------------------------------------------------------
+
+    // Smallest number of vertices relaxed by one task, phases with fewer
+    // vertices are relaxed by the calling thread alone
+    private static final int CHUNK = 256;
+
+    // Number of ranges of vertices per thread in a phase, so threads
+    // finishing early can take ranges from the others
+    private static final int RANGES_PER_THREAD = 4;
+
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Graph to search the shortest paths for
+    private final Graph graph;
+
+    // Width of each bucket
+    private final int delta;
+
+    // Number of threads to use
+    private final int parallelism;
+
+    // Tentative distance of each vertex by id, INFINITY if not reached
+    private final AtomicIntegerArray distances;
+
+    // Vertices in each bucket, in a circular array of buckets: every score
+    // in the buckets is below the first one's plus delta plus the largest
+    // edge length, so bucket i is kept in position i mod the number of
+    // positions. Vertices whose score has moved to a smaller bucket since
+    // are left behind and skipped
+    private final int [][] buckets;
+
+    // Number of vertices in each position of the buckets
+    private final int [] bucketSizes;
+
+    // Number of vertices in all the buckets
+    private long queued;
+
+    // Ids of the vertices relaxed by the current phase
+    private final int [] frontier;
+
+    // Phase in which each vertex was last put in the frontier
+    private final int [] frontierPhases;
+
+    // Ids of the vertices taken out of the current bucket, and how many
+    private final int [] settled;
+    private int settledCount;
+
+    // Bucket, plus one, in which each vertex was last taken out
+    private final int [] settledBuckets;
+
+    // Vertices whose distance was lowered by each task of a phase
+    private final ConcurrentLinkedQueue<int []> improved;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Creates the state of a search on the given graph.
+     * @param graph Graph to search the shortest paths for.
+     * @param delta Width of each bucket, delta >= 1.
+     * @param parallelism Number of threads to use, parallelism >= 1.
+     */
+    private DeltaStepping(Graph graph, int delta, int parallelism)
+    {
+        int n = graph.getN();
+        this.graph = graph;
+        this.delta = delta;
+        this.parallelism = parallelism;
+        this.distances = new AtomicIntegerArray(n + 1);
+        for(int v = 1; v <= n; v++)
+        {
+            this.distances.set(v, Dijkstra.INFINITY);
+        }
+        int positions = Math.min(graph.getMaxLength(), Dijkstra.INFINITY) /
+                delta + 2;
+        this.buckets = new int[positions][16];
+        this.bucketSizes = new int[positions];
+        this.frontier = new int[n];
+        this.frontierPhases = new int[n + 1];
+        this.settled = new int[n];
+        this.settledBuckets = new int[n + 1];
+        this.improved = new ConcurrentLinkedQueue<int []>();
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC CLASS METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Solves the single source shortest paths problem from the vertex with
+     * id s with buckets of the given width on the given number of threads.
+     * @param graph Graph to search the shortest paths for.
+     * @param s Id of the starting vertex in graph, s in [1...n].
+     * @param delta Width of each bucket, delta >= 1.
+     * @param parallelism Number of threads to use, parallelism >= 1.
+     * @return New array with the shortest distance from s to the vertex with
+     *         id i + 1 in position i, INFINITY if it isn't reachable, the
+     *         same as Dijkstra.solve.
+     */
+    public static int [] solve(Graph graph, int s, int delta,
+                               int parallelism)
+    {
+        DeltaStepping search = new DeltaStepping(graph, delta, parallelism);
+        ForkJoinPool threads = (parallelism > 1) ?
+                new ForkJoinPool(parallelism) : null;
+        try
+        {
+            search.run(s, threads);
+        }
+        finally
+        {
+            if(threads != null)
+            {
+                threads.shutdown();
+            }
+        }
+        int [] paths = new int[graph.getN()];
+        for(int i = 0; i < paths.length; i++)
+        {
+            paths[i] = search.distances.get(i + 1);
+        }
+        return paths;
+    }
+
+    /**
+     * Gets a bucket width suited to the given graph: the largest edge length
+     * over the average out-degree, so a vertex has about one light edge per
+     * bucket width of its score.
+     * @param graph Graph to search the shortest paths for.
+     * @return Width of each bucket, >= 1.
+     */
+    public static int getDelta(Graph graph)
+    {
+        if(graph.getM() == 0)
+        {
+            return 1;
+        }
+        long delta = (long) graph.getMaxLength() * graph.getN() /
+                graph.getM();
+        return (int) Math.max(1, Math.min(delta, graph.getMaxLength()));
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Runs delta-stepping from the vertex with id s, leaving the distances
+     * in the distances attribute.
+     * @param s Id of the starting vertex in graph.
+     * @param threads Pool on which to relax the phases, null to relax them
+     *                on the calling thread.
+     */
+    private void run(int s, ForkJoinPool threads)
+    {
+        int positions = this.buckets.length;
+        this.distances.set(s, 0);
+        this.push(s, 0);
+        int phase = 0;
+        for(int i = 0; this.queued > 0; i++)
+        {
+            int position = i % positions;
+            this.settledCount = 0;
+            while(this.bucketSizes[position] > 0)
+            {
+                // Takes the vertices out of the bucket, skipping the ones
+                // whose score is in a smaller bucket by now and repeated ones
+                phase++;
+                int [] bucket = this.buckets[position];
+                int size = this.bucketSizes[position];
+                this.bucketSizes[position] = 0;
+                this.queued -= size;
+                int count = 0;
+                for(int j = 0; j < size; j++)
+                {
+                    int v = bucket[j];
+                    if(this.distances.get(v) / this.delta != i ||
+                            this.frontierPhases[v] == phase)
+                    {
+                        continue;
+                    }
+                    this.frontierPhases[v] = phase;
+                    this.frontier[count++] = v;
+                    if(this.settledBuckets[v] != i + 1)
+                    {
+                        this.settledBuckets[v] = i + 1;
+                        this.settled[this.settledCount++] = v;
+                    }
+                }
+                this.relax(threads, this.frontier, count, true);
+            }
+            this.relax(threads, this.settled, this.settledCount, false);
+        }
+    }
+
+    /**
+     * Relaxes the light or heavy edges leaving the given vertices, in
+     * parallel if there are enough of them, and puts each vertex whose
+     * distance was lowered in the bucket of its new score.
+     * @param threads Pool on which to relax the edges, or null.
+     * @param vertices Ids of the vertices whose edges to relax.
+     * @param count Number of vertices.
+     * @param light Whether to relax the light edges or the heavy ones.
+     */
+    private void relax(ForkJoinPool threads, int [] vertices, int count,
+                       boolean light)
+    {
+        if(threads == null || count <= CHUNK)
+        {
+            this.improved.add(this.relaxRange(vertices, 0, count, light));
+        }
+        else
+        {
+            int ranges = this.parallelism * RANGES_PER_THREAD;
+            int chunk = Math.max(CHUNK, (count + ranges - 1) / ranges);
+            threads.invoke(new RelaxTask(this, vertices, light, chunk, 0,
+                    count));
+        }
+        int [] lowered;
+        while((lowered = this.improved.poll()) != null)
+        {
+            for(int v : lowered)
+            {
+                this.push(v, this.distances.get(v) / this.delta);
+            }
+        }
+    }
+
+    /**
+     * Relaxes the light or heavy edges leaving the vertices in the given
+     * range of positions, lowering the distance of each head if the edge
+     * gives it a smaller score. A distance lowered by another thread in
+     * between is read again, so the smallest score always stays.
+     * @param vertices Ids of the vertices whose edges to relax.
+     * @param from First position of the range, inclusive.
+     * @param to Last position of the range, exclusive.
+     * @param light Whether to relax the light edges or the heavy ones.
+     * @return Ids of the vertices whose distance was lowered, maybe
+     *         repeated.
+     */
+    private int [] relaxRange(int [] vertices, int from, int to,
+                              boolean light)
+    {
+        Graph graph = this.graph;
+        AtomicIntegerArray distances = this.distances;
+        int delta = this.delta;
+        int [] lowered = new int[16];
+        int count = 0;
+        for(int k = from; k < to; k++)
+        {
+            int wId = vertices[k];
+            int wScore = distances.get(wId);
+            int end = graph.getHeadsEnd(wId);
+            for(int i = graph.getHeadsStart(wId); i < end; i++)
+            {
+                int length = graph.getLength(i);
+                if((length <= delta) != light)
+                {
+                    continue;
+                }
+                int vId = graph.getHead(i);
+                int vScore = Dijkstra.add(wScore, length);
+                int old = distances.get(vId);
+                while(vScore < old &&
+                        !distances.compareAndSet(vId, old, vScore))
+                {
+                    old = distances.get(vId);
+                }
+                if(vScore < old)
+                {
+                    if(count == lowered.length)
+                    {
+                        lowered = Arrays.copyOf(lowered, count * 2);
+                    }
+                    lowered[count++] = vId;
+                }
+            }
+        }
+        return Arrays.copyOf(lowered, count);
+    }
+
+    /**
+     * Puts the given vertex in the given bucket.
+     * @param v Id of the vertex.
+     * @param bucket Bucket of its score.
+     */
+    private void push(int v, int bucket)
+    {
+        int position = bucket % this.buckets.length;
+        int size = this.bucketSizes[position];
+        if(size == this.buckets[position].length)
+        {
+            this.buckets[position] = Arrays.copyOf(this.buckets[position],
+                    size * 2);
+        }
+        this.buckets[position][size] = v;
+        this.bucketSizes[position] = size + 1;
+        this.queued++;
+    }
+
+    //-------------------------------------------------------------------------
+    // NESTED CLASSES
+    //-------------------------------------------------------------------------
+
+    /**
+     * Task that relaxes the edges of the vertices in a range of positions of
+     * a phase, splitting it in halves while it has more than a chunk of
+     * vertices.
+     */
+    private static class RelaxTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        // Search the phase belongs to
+        private final DeltaStepping search;
+
+        // Ids of the vertices of the phase
+        private final int [] vertices;
+
+        // Whether to relax the light edges or the heavy ones
+        private final boolean light;
+
+        // Largest number of vertices relaxed by one task without splitting
+        private final int chunk;
+
+        // First position of the range, inclusive
+        private final int from;
+
+        // Last position of the range, exclusive
+        private final int to;
+
+        /**
+         * Creates a task for the given range of positions of a phase.
+         */
+        private RelaxTask(DeltaStepping search, int [] vertices, boolean light,
+                          int chunk, int from, int to)
+        {
+            this.search = search;
+            this.vertices = vertices;
+            this.light = light;
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute()
+        {
+            if(this.to - this.from > this.chunk)
+            {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new RelaxTask(this.search, this.vertices, this.light,
+                                this.chunk, this.from, middle),
+                        new RelaxTask(this.search, this.vertices, this.light,
+                                this.chunk, middle, this.to));
+                return;
+            }
+            this.search.improved.add(this.search.relaxRange(this.vertices,
+                    this.from, this.to, this.light));
+        }
+    }
+}
@@ -4,50 +4,51 @@
  * algorithm. <br/>
  *
  * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
- * @version 1.0
+ * @version 1.9
  * @since 24/06/14
  */
 
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-
 /**
- * Class that implements Dijkstra's shortest path algorithm.
+ * Class that implements Dijkstra's shortest path algorithm, either with a
+ * binary heap or with Dial's circular array of buckets. Point to point
+ * queries stop as soon as their targets are settled, and can also search
+ * from both ends at once, with A* guided by landmarks or on a contraction
+ * hierarchy. A full solve may also record the predecessor of each vertex
+ * on its shortest path, from which path() rebuilds the route to any vertex.
+ * Distances are ints below INFINITY; solveLong and distanceLong keep them
+ * as longs instead, for graphs with longer paths.
+ * Each call runs on a new DijkstraSearch, so calls from different threads
+ * don't share any state; callers running many queries should reuse
+ * searches, taking them from a SearchPool.
+ * @see DijkstraSearch
+ * @see LongDijkstraSearch
+ * @see BatchDijkstra
  */
 public class Dijkstra
 {
     //-------------------------------------------------------------------------
-    // CONSTANT
-    //-------------------------------------------------------------------------
-
-    // Value to assign to an theoretical infinite value
-    private static final int INFINITY = 1000000;
-
-    //-------------------------------------------------------------------------
-    // CLASS ATTRIBUTES
+    // CONSTANTS
     //-------------------------------------------------------------------------
 
-    // List of vertices processed so far
-    private static List<Integer> x;
+    // Value to assign to an theoretical infinite value. Distances are ints
+    // and paths of this length or longer are taken as unreachable, so
+    // graphs with longer paths must be solved with solveLong
+    public static final int INFINITY = 1000000;
 
-    // List of computed shortest path distances from s to any other vertex of
-    // the given graph
-    private static int [] a;
+    // Distance of the vertices that can't be reached in the searches with
+    // long distances, longer than any path
+    public static final long UNREACHABLE = Long.MAX_VALUE;
 
-    // Heap on which to store vertices not yet processed during execution
-    private static PriorityQueue<Integer> heap;
+    // Engine that keeps the vertices reached in an indexed binary heap
+    public static final int HEAP = 0;
 
-    // Maps vertices with their corresponding heap keys, uses chaining in case
-    // there are multiple vertices with the same heap key (greedy score)
-    private static Map<Integer,List<Integer>> vertexHeapKey;
+    // Engine that keeps the vertices reached in Dial's circular array of
+    // buckets, one per distance, best for small integer lengths
+    public static final int DIAL = 1;
 
-    // Maps heap keys with their corresponding vertex ids. In this case there's
-    // no need for chaining since all vertices have different ids
-    private static Map<Integer,Integer> heapKeyVertex;
+    // Engine for point to point queries that searches forwards from s and
+    // backwards from t at the same time
+    public static final int BIDIRECTIONAL = 2;
 
     //-------------------------------------------------------------------------
     // CONSTRUCTOR
@@ -69,161 +70,190 @@ public class Dijkstra
      */
     public static int [] solve(int s, Graph graph)
     {
-        // Initializes the x list on which to store the ids of the vertices
-        // processed so far, the path list a on which to store shortest path
-        // distances from s to each other vertex, the heap on which to store
-        // vertices not yet explored, and the vertexHeapKey and heapKeyVertex
-        // arrays on which to store the key of each vertex in the heap
-        int n = graph.getN();
-        Dijkstra.x = new ArrayList<Integer>(n);
-        Dijkstra.a = new int [n];
-        Dijkstra.heap = new PriorityQueue<Integer>(n);
-        Dijkstra.vertexHeapKey = new HashMap<Integer, List<Integer>>(n);
-        Dijkstra.heapKeyVertex = new HashMap<Integer, Integer>(n);
-
-        // Assumes infinite distances between s and all the other vertices
-        for(int i = 0; i < n; i++)
-        {
-            Dijkstra.a[i] = Dijkstra.INFINITY;
-        }
+        return Dijkstra.solve(s, graph, Dijkstra.HEAP);
+    }
 
-        // Mark vertex s as processed and the distance to itself as 0
-        Dijkstra.x.add(s);
-        Dijkstra.a[s - 1] = 0;
+    /**
+     * Solves Dijkstra's shortest path algorithm starting on vertex with id s
+     * in the given graph object using the given engine, s in [1...n], where
+     * n is the number of vertices in graph.
+     * @param s Id of the starting vertex in graph.
+     * @param graph Graph to search the shortest path for.
+     * @param engine Dijkstra.HEAP or Dijkstra.DIAL.
+     * @return List of shortest distances from s to each of the other vertices.
+     */
+    public static int [] solve(int s, Graph graph, int engine)
+    {
+        return new DijkstraSearch(graph).solve(s, engine);
+    }
 
-        // Walks through each vertex not yet explored, calculates its key and
-        // adds it to the vertexHeapKey and heapKeyVertex HashMaps
-        for(int i = 1; i <= n; i++)
-        {
-            if (i != s)
-            {
-                int vertexScore = Dijkstra.minGreedyScore(i, graph);
-                Dijkstra.a[i - 1] = vertexScore;
-                Dijkstra.addToHeap(i, vertexScore);
-            }
-        }
+    /**
+     * Solves Dijkstra's shortest path algorithm starting on vertex with id s
+     * in the given graph object, recording in the given array the vertex
+     * before each one on its shortest path from s, so the path to any
+     * vertex can then be rebuilt with path() without searching again.
+     * @param s Id of the starting vertex in graph.
+     * @param graph Graph to search the shortest path for.
+     * @param predecessors Array of n positions where to write the id of the
+     *                     vertex before the vertex with id i + 1 on its
+     *                     shortest path from s in position i, 0 if it is s
+     *                     or isn't reachable.
+     * @return List of shortest distances from s to each of the other vertices.
+     */
+    public static int [] solve(int s, Graph graph, int [] predecessors)
+    {
+        int [] paths = new int[graph.getN()];
+        new DijkstraSearch(graph).solve(s, Dijkstra.HEAP, paths,
+                predecessors);
+        return paths;
+    }
 
-        // Walks through each vertex in the graph assigning the shortest path
-        // from s to such vertex
-        while(Dijkstra.x.size() < n)
-        {
-            // Extracts the key for the minimum path vertex not yet explored,
-            // removing it from the corresponding HashMaps
-            int [] w = Dijkstra.extractFromHeap();
-            int wId = w[0];
-            int wScore = w[1];
-            Dijkstra.a[wId - 1] = wScore;
-            Dijkstra.x.add(wId);
-
-            // Updates key to the implicated edges (those whose tail is in X,
-            // but their heads are in V - X)
-            List<Edge> edgesLeaving = graph.getVertexEdgesLeaving(wId);
-            for(Edge edge : edgesLeaving)
-            {
-                int vId = edge.getHead();
-                if(!Dijkstra.x.contains(vId))
-                {
-                    // If vId is not in X, then it is in the heap
-                    int vKey = Dijkstra.heapKeyVertex.get(vId);
-
-                    // Removes head vertex with id vId from the heap, updates
-                    // HashMaps accordingly
-                    Dijkstra.deleteFromHeap(vKey, vId);
-
-                    // Recomputes the smalles greedy score for this vertex
-                    int vScore = Math.min(vKey, a[wId - 1] + edge.getLength());
-
-                    // Re-inserts vertex vId into the heap, updates HashMaps
-                    // accordingly
-                    Dijkstra.addToHeap(vId, vScore);
-                }
-            }
-        }
+    /**
+     * Solves Dijkstra's shortest path algorithm starting on vertex with id s
+     * in the given graph object with long distances, which are exact for
+     * paths of any length.
+     * @param s Id of the starting vertex in graph.
+     * @param graph Graph to search the shortest path for.
+     * @return Array with the shortest distance from s to the vertex with id
+     *         i + 1 in position i, UNREACHABLE if it isn't reachable.
+     */
+    public static long [] solveLong(int s, Graph graph)
+    {
+        return new LongDijkstraSearch(graph).solve(s);
+    }
 
-        // Returns the computed array with shortest paths
-        return a;
+    /**
+     * Gets the length of the shortest path from vertex with id s to vertex
+     * with id t in the given graph with long distances, stopping as soon as
+     * t is settled.
+     * @param s Id of the starting vertex in graph.
+     * @param t Id of the target vertex in graph.
+     * @param graph Graph to search the shortest path for.
+     * @return Shortest distance from s to t, UNREACHABLE if t isn't
+     *         reachable.
+     */
+    public static long distanceLong(int s, int t, Graph graph)
+    {
+        return new LongDijkstraSearch(graph).distance(s, t);
     }
 
-    //-------------------------------------------------------------------------
-    // PRIVATE HELPER METHODS
-    //-------------------------------------------------------------------------
+    /**
+     * Adds the length of an edge to the score of a path, saturating at
+     * INFINITY so the sum of a score and any int length can't overflow into
+     * a negative score.
+     * @param score Length of a path, score in [0...INFINITY].
+     * @param length Length of the edge, length >= 0.
+     * @return Length of the path followed by the edge, INFINITY if it is
+     *         INFINITY or longer.
+     */
+    public static int add(int score, int length)
+    {
+        return (length >= Dijkstra.INFINITY - score) ? Dijkstra.INFINITY :
+                score + length;
+    }
 
     /**
-     * Computes the smallest greedy score of vertex with id vertexId in the
-     * given graph. <br/>
-     * @param vertexId Id of the not-yet-explored vertex.
-     * @param graph Graph to examine.
-     * @return Smallest greedy score of the given vertex.
+     * Rebuilds the shortest path from vertex with id s to vertex with id t
+     * following the predecessors recorded by a search from s back from t.
+     * @param s Id of the starting vertex of the search.
+     * @param t Id of the target vertex.
+     * @param predecessors Predecessors recorded by the search from s, the
+     *                     one of the vertex with id i + 1 in position i.
+     * @return Ids of the vertices on the shortest path from s to t, s first
+     *         and t last, or an empty array if t isn't reachable from s.
      */
-    private static int minGreedyScore(int vertexId, Graph graph)
+    public static int [] path(int s, int t, int [] predecessors)
     {
-        // Obtains the edges that point to the vertex with the given id
-        List<Edge> edgesArriving = graph.getVertexEdgesArriving(vertexId);
-        // Finds the smallest greedy score of the given vertex
-        int min = 1000000;
-        for(Edge edge : edgesArriving)
+        if(t != s && predecessors[t - 1] == 0)
         {
-            min = Math.min(min,
-                    Dijkstra.a[edge.getTail() - 1] + edge.getLength());
+            return new int[0];
         }
-        // Returns the smallest greedy score of the given vertex
-        return min;
+        int length = 1;
+        for(int v = t; v != s; v = predecessors[v - 1])
+        {
+            length++;
+        }
+        int [] path = new int[length];
+        for(int v = t; length > 0; v = predecessors[v - 1])
+        {
+            path[--length] = v;
+        }
+        return path;
     }
 
     /**
-     * Adds a new value to the heap, updating the hashmaps accordingly.
-     * @param vertexId Id of vertex whose reference will be added to the heap.
-     * @param vertexScore Score to add to heap representing the given vertex.
+     * Gets the length of the shortest path from vertex with id s to vertex
+     * with id t in the given graph, stopping as soon as t is settled.
+     * @param s Id of the starting vertex in graph.
+     * @param t Id of the target vertex in graph.
+     * @param graph Graph to search the shortest path for.
+     * @return Shortest distance from s to t, INFINITY if t isn't reachable.
      */
-    private static void addToHeap(int vertexId, int vertexScore)
+    public static int distance(int s, int t, Graph graph)
     {
-        Dijkstra.heap.add(vertexScore);
-        List<Integer> vertexIds = Dijkstra.vertexHeapKey.get(vertexScore);
-        if(vertexIds == null)
-        {
-            vertexIds = new ArrayList<Integer>();
-        }
-        vertexIds.add(vertexId);
-        Dijkstra.vertexHeapKey.put(vertexScore, vertexIds);
-        Dijkstra.heapKeyVertex.put(vertexId, vertexScore);
+        return Dijkstra.distance(s, t, graph, Dijkstra.HEAP);
+    }
+
+    /**
+     * Gets the length of the shortest path from vertex with id s to vertex
+     * with id t in the given graph using the given engine. With
+     * Dijkstra.BIDIRECTIONAL the search goes forwards from s and backwards
+     * from t, usually settling far fewer vertices than a search from s
+     * alone; any other engine searches from s until t is settled.
+     * @param s Id of the starting vertex in graph.
+     * @param t Id of the target vertex in graph.
+     * @param graph Graph to search the shortest path for.
+     * @param engine Dijkstra.HEAP or Dijkstra.BIDIRECTIONAL.
+     * @return Shortest distance from s to t, INFINITY if t isn't reachable.
+     */
+    public static int distance(int s, int t, Graph graph, int engine)
+    {
+        return new DijkstraSearch(graph).distance(s, t, engine);
     }
 
     /**
-     * Extracts the minimum score from heap, gets the corresponding vertex id
-     * and returns it. If there is more than one vertex with the same score,
-     * returns the first one in the chained list. Updates hashmaps accordingly.
-     * @return An array with vertex id and vertex score that corresponds with
-     * the min-score in the heap.
+     * Gets the length of the shortest path from vertex with id s to vertex
+     * with id t in the given graph with the A* search, guided by the lower
+     * bounds of the given landmarks.
+     * @param s Id of the starting vertex in graph.
+     * @param t Id of the target vertex in graph.
+     * @param graph Graph to search the shortest path for.
+     * @param landmarks Landmarks computed on the current version of graph.
+     * @return Shortest distance from s to t, INFINITY if t isn't reachable.
      */
-    private static int [] extractFromHeap()
+    public static int distance(int s, int t, Graph graph, Landmarks landmarks)
     {
-        int [] w = new int[2];
-        int wKey = Dijkstra.heap.poll();
-        List<Integer> vertexIds = Dijkstra.vertexHeapKey.get(wKey);
-        w[0] = vertexIds.remove(0);
-        if(vertexIds.size() > 0)
-        {
-            Dijkstra.vertexHeapKey.put(wKey, vertexIds);
-        }
-        w[1] = Dijkstra.heapKeyVertex.remove(w[0]);
-        return w;
+        return new DijkstraSearch(graph).distance(s, t, landmarks);
     }
 
     /**
-     * Removes the vertex with the specified vKey and vId from the heap,
-     * updating hashmaps accordingly.
-     * @param vKey Score in the heap for a vertex to remove.
-     * @param vId Id of the vertex to remove from the heap.
+     * Gets the length of the shortest path from vertex with id s to vertex
+     * with id t in the given graph on its contraction hierarchy.
+     * @param s Id of the starting vertex in graph.
+     * @param t Id of the target vertex in graph.
+     * @param graph Graph to search the shortest path for.
+     * @param hierarchy Contraction hierarchy of the current version of
+     *                  graph.
+     * @return Shortest distance from s to t, INFINITY if t isn't reachable.
      */
-    private static void deleteFromHeap(int vKey, int vId)
+    public static int distance(int s, int t, Graph graph,
+                               ContractionHierarchy hierarchy)
     {
-        Dijkstra.heap.remove(vKey);
-        List<Integer> vertexIds = Dijkstra.vertexHeapKey.remove(vKey);
-        vertexIds.remove(Integer.valueOf(vId));
-        if(vertexIds.size() > 0)
-        {
-            Dijkstra.vertexHeapKey.put(vKey, vertexIds);
-        }
-        Dijkstra.heapKeyVertex.remove(vId);
+        return new DijkstraSearch(graph).distance(s, t, hierarchy);
+    }
+
+    /**
+     * Gets the lengths of the shortest paths from vertex with id s to each
+     * of the given target vertices in the given graph, stopping as soon as
+     * all of them are settled instead of computing all n distances.
+     * @param s Id of the starting vertex in graph.
+     * @param targets Ids of the target vertices in graph.
+     * @param graph Graph to search the shortest paths for.
+     * @return Array with the shortest distance from s to targets[i] in
+     *         position i, INFINITY if targets[i] isn't reachable.
+     */
+    public static int [] distances(int s, int [] targets, Graph graph)
+    {
+        return new DijkstraSearch(graph).distances(s, targets);
     }
 }
@@ -0,0 +1,688 @@
+/**
+ * $Id: DijkstraSearch.java, v 1.0 17/10/26 19:10 oscarfabra Exp $
+ * {@code DijkstraSearch} Is a class that keeps the state of Dijkstra's
+ * shortest path queries on a graph, so it can be reused from query to
+ * query. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.4
+ * @since 17/10/26
+ */
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Class that runs Dijkstra's shortest path queries on a graph, keeping the
+ * heaps, distances and settled sets of a query in its own attributes
+ * instead of in class attributes. A search is meant to be used by one thread
+ * at a time and reused for many queries: after each query only the vertices
+ * it reached are reset, so a query that stops early costs nothing for the
+ * rest of the graph. Several searches on the same graph can run at the same
+ * time on different threads, since the graph is only read.
+ * @see Dijkstra
+ * @see SearchPool
+ * @see Landmarks
+ * @see ContractionHierarchy
+ */
+public class DijkstraSearch
+{
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Graph to search the shortest paths for
+    private final Graph graph;
+
+    // State of the search from the source, along the edges leaving each
+    // vertex
+    private final Side forward;
+
+    // State of the search from the target, along the edges arriving at each
+    // vertex. Only created for bidirectional queries
+    private Side backward;
+
+    // Ids of the targets not yet settled by a query with targets
+    private final BitSet pending;
+
+    // First vertex of each of Dial's buckets, 0 if none. Only created for
+    // queries with Dial's engine
+    private int [] buckets;
+
+    // Version of the graph the number of buckets was picked for
+    private int bucketsVersion;
+
+    // Next and previous vertices in the bucket of each vertex, 0 if none
+    private int [] next;
+    private int [] previous;
+
+    // Number of vertices settled by the last query
+    private int settledCount;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Creates a new search on the given graph.
+     * @param graph Graph to search the shortest paths for.
+     */
+    public DijkstraSearch(Graph graph)
+    {
+        this.graph = graph;
+        this.forward = new Side(graph.getN());
+        this.pending = new BitSet(graph.getN() + 1);
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Gets the graph this search runs on.
+     * @return Graph to search the shortest paths for.
+     */
+    public Graph getGraph()
+    {
+        return this.graph;
+    }
+
+    /**
+     * Gets the number of vertices settled by the last query, i.e. whose
+     * shortest distance was final when the query ended.
+     * @return Number of vertices settled.
+     */
+    public int getSettledCount()
+    {
+        return this.settledCount;
+    }
+
+    /**
+     * Solves Dijkstra's shortest path algorithm starting on vertex with id s
+     * using the given engine.
+     * @param s Id of the starting vertex in graph, s in [1...n].
+     * @param engine Dijkstra.HEAP or Dijkstra.DIAL.
+     * @return New array with the shortest distance from s to the vertex with
+     *         id i + 1 in position i, INFINITY if it isn't reachable.
+     */
+    public int [] solve(int s, int engine)
+    {
+        int [] paths = new int[this.graph.getN()];
+        this.solve(s, engine, paths);
+        return paths;
+    }
+
+    /**
+     * Solves Dijkstra's shortest path algorithm starting on vertex with id s
+     * using the given engine, writing the distances in the given array.
+     * @param s Id of the starting vertex in graph, s in [1...n].
+     * @param engine Dijkstra.HEAP or Dijkstra.DIAL.
+     * @param paths Array of n positions where to write the shortest distance
+     *              from s to the vertex with id i + 1 in position i,
+     *              INFINITY if it isn't reachable.
+     */
+    public void solve(int s, int engine, int [] paths)
+    {
+        this.solve(s, engine, paths, null);
+    }
+
+    /**
+     * Solves Dijkstra's shortest path algorithm starting on vertex with id s
+     * using the given engine, writing the distances in the given array and
+     * the predecessor of each vertex on its shortest path from s in the
+     * other one, so the path to any vertex can be rebuilt with Dijkstra.path
+     * without searching again. The predecessor of a vertex is recorded each
+     * time an edge lowers its distance, so the last one is on its shortest
+     * path.
+     * @param s Id of the starting vertex in graph, s in [1...n].
+     * @param engine Dijkstra.HEAP or Dijkstra.DIAL.
+     * @param paths Array of n positions where to write the shortest distance
+     *              from s to the vertex with id i + 1 in position i,
+     *              INFINITY if it isn't reachable.
+     * @param predecessors Array of n positions where to write the id of the
+     *                     vertex before the vertex with id i + 1 on its
+     *                     shortest path from s in position i, 0 if it is s
+     *                     or isn't reachable; or null not to record them.
+     */
+    public void solve(int s, int engine, int [] paths, int [] predecessors)
+    {
+        if(predecessors != null)
+        {
+            Arrays.fill(predecessors, 0);
+        }
+        if(engine == Dijkstra.DIAL)
+        {
+            this.searchWithBuckets(s, predecessors);
+        }
+        else
+        {
+            this.searchWithHeap(s, false, predecessors);
+        }
+        System.arraycopy(this.forward.distances, 1, paths, 0, paths.length);
+        this.forward.reset();
+    }
+
+    /**
+     * Gets the length of the shortest path from vertex with id s to vertex
+     * with id t using the given engine.
+     * @param s Id of the starting vertex in graph.
+     * @param t Id of the target vertex in graph.
+     * @param engine Dijkstra.HEAP or Dijkstra.BIDIRECTIONAL.
+     * @return Shortest distance from s to t, INFINITY if t isn't reachable.
+     */
+    public int distance(int s, int t, int engine)
+    {
+        if(engine == Dijkstra.BIDIRECTIONAL)
+        {
+            return this.searchBidirectional(s, t);
+        }
+        this.pending.set(t);
+        this.searchWithHeap(s, true, null);
+        int distance = this.forward.distances[t];
+        this.forward.reset();
+        return distance;
+    }
+
+    /**
+     * Gets the length of the shortest path from vertex with id s to vertex
+     * with id t with the A* search, using the lower bounds of the given
+     * landmarks as the distance left to t. The bounds are consistent, so
+     * each vertex is settled at most once, and the search settles the
+     * vertices towards t first, usually far fewer than Dijkstra's.
+     * @param s Id of the starting vertex in graph.
+     * @param t Id of the target vertex in graph.
+     * @param landmarks Landmarks computed on the current version of graph.
+     * @return Shortest distance from s to t, INFINITY if t isn't reachable.
+     */
+    public int distance(int s, int t, Landmarks landmarks)
+    {
+        if(landmarks.getVersion() != this.graph.getVersion())
+        {
+            throw new IllegalStateException("The landmarks were computed " +
+                    "before the graph was rebuilt.");
+        }
+        Graph graph = this.graph;
+        Side side = this.forward;
+        this.settledCount = 0;
+        side.relax(s, 0, landmarks.getLowerBound(s, t));
+        while(!side.heap.isEmpty())
+        {
+            // Extracts the vertex with the smallest distance from s plus
+            // lower bound to t
+            int wId = side.heap.extractMin();
+            side.settled.set(wId);
+            this.settledCount++;
+            if(wId == t)
+            {
+                break;
+            }
+            int wScore = side.distances[wId];
+            int end = graph.getHeadsEnd(wId);
+            for(int i = graph.getHeadsStart(wId); i < end; i++)
+            {
+                int vId = graph.getHead(i);
+                int vScore = Dijkstra.add(wScore, graph.getLength(i));
+                if(vScore < side.distances[vId] && !side.settled.get(vId))
+                {
+                    side.relax(vId, vScore,
+                            (long) vScore + landmarks.getLowerBound(vId, t));
+                }
+            }
+        }
+        int distance = side.distances[t];
+        side.reset();
+        return distance;
+    }
+
+    /**
+     * Gets the length of the shortest path from vertex with id s to vertex
+     * with id t on the given contraction hierarchy: the search goes forwards
+     * from s along the edges going up in rank and backwards from t along
+     * the edges coming down in rank, and the shortest path is the best one
+     * through a vertex reached by both. Each side stops once its smallest
+     * key is no smaller than the best path found.
+     * @param s Id of the starting vertex in graph.
+     * @param t Id of the target vertex in graph.
+     * @param hierarchy Contraction hierarchy of the current version of
+     *                  graph.
+     * @return Shortest distance from s to t, INFINITY if t isn't reachable.
+     */
+    public int distance(int s, int t, ContractionHierarchy hierarchy)
+    {
+        if(hierarchy.getVersion() != this.graph.getVersion())
+        {
+            throw new IllegalStateException("The hierarchy was built " +
+                    "before the graph was rebuilt.");
+        }
+        if(this.backward == null)
+        {
+            this.backward = new Side(this.graph.getN());
+        }
+        Graph upward = hierarchy.getUpward();
+        Graph downward = hierarchy.getDownward();
+        Side forward = this.forward;
+        Side backward = this.backward;
+        forward.relax(s, 0);
+        backward.relax(t, 0);
+        this.settledCount = 0;
+
+        // Length of the shortest path found so far, through s = t if equal
+        int best = (s == t) ? 0 : Dijkstra.INFINITY;
+        while(true)
+        {
+            int forwardMin = forward.heap.isEmpty() ? Dijkstra.INFINITY :
+                    forward.distances[forward.heap.peek()];
+            int backwardMin = backward.heap.isEmpty() ? Dijkstra.INFINITY :
+                    backward.distances[backward.heap.peek()];
+            if(Math.min(forwardMin, backwardMin) >= best)
+            {
+                break;
+            }
+            this.settledCount++;
+            boolean isForward = forwardMin <= backwardMin;
+            Side side = isForward ? forward : backward;
+            Side other = isForward ? backward : forward;
+            Graph graph = isForward ? upward : downward;
+            int wScore = Math.min(forwardMin, backwardMin);
+
+            // Settles the closest vertex of the side and relaxes its edges,
+            // checking the paths through the vertices reached
+            int wId = side.heap.extractMin();
+            side.settled.set(wId);
+            int end = graph.getHeadsEnd(wId);
+            for(int i = graph.getHeadsStart(wId); i < end; i++)
+            {
+                int vId = graph.getHead(i);
+                int vScore = Dijkstra.add(wScore, graph.getLength(i));
+                best = Math.min(best, vScore + other.distances[vId]);
+                side.relax(vId, vScore);
+            }
+        }
+        forward.reset();
+        backward.reset();
+        return Math.min(best, Dijkstra.INFINITY);
+    }
+
+    /**
+     * Gets the lengths of the shortest paths from vertex with id s to each
+     * of the given target vertices, stopping as soon as all of them are
+     * settled instead of computing all n distances.
+     * @param s Id of the starting vertex in graph.
+     * @param targets Ids of the target vertices in graph.
+     * @return Array with the shortest distance from s to targets[i] in
+     *         position i, INFINITY if targets[i] isn't reachable.
+     */
+    public int [] distances(int s, int [] targets)
+    {
+        for(int t : targets)
+        {
+            this.pending.set(t);
+        }
+        this.searchWithHeap(s, true, null);
+        int [] distances = new int[targets.length];
+        for(int i = 0; i < targets.length; i++)
+        {
+            distances[i] = this.forward.distances[targets[i]];
+        }
+        this.forward.reset();
+        return distances;
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Runs Dijkstra's shortest path algorithm from vertex with id s keeping
+     * the vertices reached but not yet explored in an indexed binary heap,
+     * leaving the distances in the forward side. If asked to, the search
+     * stops once every pending target is settled, and only the distances of
+     * the settled vertices are final by then.
+     * @param s Id of the starting vertex in graph.
+     * @param targets Whether to stop once the pending targets are settled.
+     * @param predecessors Array where to write the predecessor of the
+     *                     vertex with id i + 1 in position i, or null.
+     */
+    private void searchWithHeap(int s, boolean targets, int [] predecessors)
+    {
+        Graph graph = this.graph;
+        Side side = this.forward;
+        this.settledCount = 0;
+
+        // Only s is reached at first, other vertices enter the heap when an
+        // edge from X reaches them, so their scores aren't computed upfront
+        side.relax(s, 0);
+
+        // Walks through each vertex reachable from s assigning the shortest
+        // path from s to such vertex
+        while(!side.heap.isEmpty())
+        {
+            // Extracts the minimum path vertex not yet explored
+            int wId = side.heap.extractMin();
+            int wScore = side.distances[wId];
+            side.settled.set(wId);
+            this.settledCount++;
+
+            // Stops once the last pending target is settled
+            if(targets && this.pending.get(wId))
+            {
+                this.pending.clear(wId);
+                if(this.pending.isEmpty())
+                {
+                    break;
+                }
+            }
+
+            // Updates key to the implicated edges (those whose tail is in X,
+            // but their heads are in V - X)
+            int end = graph.getHeadsEnd(wId);
+            for(int i = graph.getHeadsStart(wId); i < end; i++)
+            {
+                int vId = graph.getHead(i);
+                if(side.relax(vId, Dijkstra.add(wScore, graph.getLength(i))) &&
+                        predecessors != null)
+                {
+                    predecessors[vId - 1] = wId;
+                }
+            }
+        }
+        this.pending.clear();
+    }
+
+    /**
+     * Runs Dijkstra's shortest path algorithm from vertex with id s with
+     * Dial's algorithm, leaving the distances in the forward side: the
+     * vertices reached are kept in a circular array of C + 1 buckets, where
+     * C is the largest edge length, at most INFINITY since longer edges
+     * never lower a distance, and a vertex with score d is in bucket d mod
+     * (C + 1). Every score in the buckets is within C of the smallest one,
+     * so scanning the buckets in circular order finds the vertices by
+     * increasing score, in O(m + n C) time overall. Buckets are doubly
+     * linked lists over arrays indexed by vertex id, so moving a vertex to a
+     * smaller score takes O(1).
+     * @param s Id of the starting vertex in graph.
+     * @param predecessors Array where to write the predecessor of the
+     *                     vertex with id i + 1 in position i, or null.
+     */
+    private void searchWithBuckets(int s, int [] predecessors)
+    {
+        Graph graph = this.graph;
+        if(this.buckets == null)
+        {
+            this.next = new int[graph.getN() + 1];
+            this.previous = new int[graph.getN() + 1];
+        }
+        if(this.buckets == null || this.bucketsVersion != graph.getVersion())
+        {
+            // More buckets than needed still work, so they only grow when
+            // a length has changed since
+            int size = Math.min(graph.getMaxLength(), Dijkstra.INFINITY) + 1;
+            if(this.buckets == null || this.buckets.length < size)
+            {
+                this.buckets = new int[size];
+            }
+            this.bucketsVersion = graph.getVersion();
+        }
+        int [] buckets = this.buckets;
+        int [] next = this.next;
+        int [] previous = this.previous;
+        int [] distances = this.forward.distances;
+        int size = buckets.length;
+
+        // Score of each vertex, final once it leaves its bucket
+        this.forward.reach(s, 0);
+        next[s] = 0;
+        previous[s] = 0;
+        buckets[0] = s;
+        int queued = 1;
+        this.settledCount = 0;
+
+        // Scans the buckets in circular order from distance 0
+        for(int d = 0; queued > 0; d++)
+        {
+            int bucket = d % size;
+            while(buckets[bucket] != 0)
+            {
+                // Pops the first vertex of the bucket, its score is final
+                int wId = buckets[bucket];
+                buckets[bucket] = next[wId];
+                previous[next[wId]] = 0;
+                queued--;
+                this.settledCount++;
+
+                int end = graph.getHeadsEnd(wId);
+                for(int i = graph.getHeadsStart(wId); i < end; i++)
+                {
+                    int vId = graph.getHead(i);
+                    int vScore = Dijkstra.add(d, graph.getLength(i));
+                    if(vScore >= distances[vId])
+                    {
+                        continue;
+                    }
+                    // Unlinks vId from its bucket if it was already reached
+                    if(distances[vId] != Dijkstra.INFINITY)
+                    {
+                        int vBucket = distances[vId] % size;
+                        if(previous[vId] == 0)
+                        {
+                            buckets[vBucket] = next[vId];
+                        }
+                        else
+                        {
+                            next[previous[vId]] = next[vId];
+                        }
+                        previous[next[vId]] = previous[vId];
+                        queued--;
+                    }
+                    // Links vId at the front of the bucket of its new score
+                    this.forward.reach(vId, vScore);
+                    if(predecessors != null)
+                    {
+                        predecessors[vId - 1] = wId;
+                    }
+                    int vBucket = vScore % size;
+                    next[vId] = buckets[vBucket];
+                    previous[vId] = 0;
+                    previous[buckets[vBucket]] = vId;
+                    buckets[vBucket] = vId;
+                    queued++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the length of the shortest path from s to t with a bidirectional
+     * search: one heap grows the distances from s along the edges leaving
+     * each vertex, another one grows the distances to t along the edges
+     * arriving at each vertex, and the side with the smaller minimum key is
+     * advanced each time. Whenever an edge joins a vertex reached from one
+     * side to a vertex reached from the other, the path through it is a
+     * candidate, and the search stops once the sum of both minimum keys is
+     * no smaller than the best candidate, which is then the shortest path.
+     * @param s Id of the starting vertex in graph.
+     * @param t Id of the target vertex in graph.
+     * @return Shortest distance from s to t, INFINITY if t isn't reachable.
+     */
+    private int searchBidirectional(int s, int t)
+    {
+        if(s == t)
+        {
+            this.settledCount = 1;
+            return 0;
+        }
+        Graph graph = this.graph;
+        graph.buildReverseAdjacencies();
+        if(this.backward == null)
+        {
+            this.backward = new Side(graph.getN());
+        }
+        Side forward = this.forward;
+        Side backward = this.backward;
+        forward.relax(s, 0);
+        backward.relax(t, 0);
+        this.settledCount = 0;
+
+        // Length of the shortest path found so far
+        int best = Dijkstra.INFINITY;
+        while(!forward.heap.isEmpty() && !backward.heap.isEmpty())
+        {
+            int forwardMin = forward.distances[forward.heap.peek()];
+            int backwardMin = backward.distances[backward.heap.peek()];
+            if(forwardMin + backwardMin >= best)
+            {
+                break;
+            }
+            this.settledCount++;
+            if(forwardMin <= backwardMin)
+            {
+                // Settles the closest vertex to s and relaxes its edges
+                int wId = forward.heap.extractMin();
+                forward.settled.set(wId);
+                int end = graph.getHeadsEnd(wId);
+                for(int i = graph.getHeadsStart(wId); i < end; i++)
+                {
+                    int vId = graph.getHead(i);
+                    int vScore = Dijkstra.add(forwardMin,
+                            graph.getLength(i));
+                    best = Math.min(best, vScore + backward.distances[vId]);
+                    forward.relax(vId, vScore);
+                }
+            }
+            else
+            {
+                // Settles the closest vertex to t and relaxes its edges
+                int wId = backward.heap.extractMin();
+                backward.settled.set(wId);
+                int end = graph.getTailsEnd(wId);
+                for(int i = graph.getTailsStart(wId); i < end; i++)
+                {
+                    int vId = graph.getTail(i);
+                    int vScore = Dijkstra.add(backwardMin,
+                            graph.getTailLength(i));
+                    best = Math.min(best, vScore + forward.distances[vId]);
+                    backward.relax(vId, vScore);
+                }
+            }
+        }
+        forward.reset();
+        backward.reset();
+        return Math.min(best, Dijkstra.INFINITY);
+    }
+
+    //-------------------------------------------------------------------------
+    // NESTED CLASSES
+    //-------------------------------------------------------------------------
+
+    /**
+     * State of a search growing from one vertex: the tentative distance of
+     * each vertex, the vertices settled and the heap of the vertices reached
+     * but not yet settled. Remembers which vertices it reached, so it can be
+     * reset in time proportional to them.
+     */
+    private static class Side
+    {
+        // Tentative distance of each vertex by id, INFINITY if not reached
+        private final int [] distances;
+
+        // Set of the ids of the vertices processed so far, X
+        private final BitSet settled;
+
+        // Heap on which to store vertices reached but not yet processed,
+        // keyed by their greedy scores
+        private final IndexedHeap heap;
+
+        // Ids of the vertices reached, in order of first reach
+        private final int [] reached;
+
+        // Number of vertices reached
+        private int reachedCount;
+
+        /**
+         * Creates the state of a search on a graph with n vertices.
+         * @param n Number of vertices of the graph.
+         */
+        private Side(int n)
+        {
+            this.distances = new int[n + 1];
+            Arrays.fill(this.distances, Dijkstra.INFINITY);
+            this.settled = new BitSet(n + 1);
+            this.heap = new IndexedHeap(n);
+            this.reached = new int[n];
+        }
+
+        /**
+         * Sets the tentative distance of the vertex with the given id,
+         * remembering it if it is reached for the first time.
+         * @param vId Id of the vertex reached.
+         * @param vScore Length of the path that reaches it.
+         */
+        private void reach(int vId, int vScore)
+        {
+            if(this.distances[vId] == Dijkstra.INFINITY)
+            {
+                this.reached[this.reachedCount++] = vId;
+            }
+            this.distances[vId] = vScore;
+        }
+
+        /**
+         * Lowers the tentative distance of the vertex with the given id to
+         * the given score if it is smaller and the vertex isn't settled,
+         * inserting it into the heap or decreasing its key.
+         * @param vId Id of the vertex reached.
+         * @param vScore Length of the path that reaches it.
+         * @return Whether the tentative distance was lowered.
+         */
+        private boolean relax(int vId, int vScore)
+        {
+            return this.relax(vId, vScore, vScore);
+        }
+
+        /**
+         * Lowers the tentative distance of the vertex with the given id to
+         * the given score if it is smaller and the vertex isn't settled,
+         * inserting it into the heap or decreasing its key to the given key.
+         * <b>Pre: </b>The key of each vertex is its score plus the same
+         * potential every time, so a smaller score means a smaller key.
+         * @param vId Id of the vertex reached.
+         * @param vScore Length of the path that reaches it.
+         * @param key Key of the vertex in the heap.
+         * @return Whether the tentative distance was lowered.
+         */
+        private boolean relax(int vId, int vScore, long key)
+        {
+            if(vScore >= this.distances[vId] || this.settled.get(vId))
+            {
+                return false;
+            }
+            this.reach(vId, vScore);
+            if(this.heap.contains(vId))
+            {
+                this.heap.decreaseKey(vId, key);
+            }
+            else
+            {
+                this.heap.insert(vId, key);
+            }
+            return true;
+        }
+
+
+        /**
+         * Sets every vertex reached back to not reached and empties the
+         * heap, in time proportional to the number of vertices reached.
+         */
+        private void reset()
+        {
+            for(int i = 0; i < this.reachedCount; i++)
+            {
+                int vId = this.reached[i];
+                this.distances[vId] = Dijkstra.INFINITY;
+                this.settled.clear(vId);
+            }
+            this.reachedCount = 0;
+            this.heap.clear();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/**
+ * $Id: DistanceCache.java, v 1.0 17/10/26 20:30 oscarfabra Exp $
+ * {@code DistanceCache} Is a class that keeps the shortest distances from
+ * the most recently queried sources of a graph, so repeated queries don't
+ * run Dijkstra's algorithm again. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class that caches the shortest distances from each source queried on a
+ * graph, evicting the least recently used sources once the rows cached take
+ * up more than a given number of bytes. Rows are either kept as arrays of
+ * ints or compressed as variable-length bytes, where distances under 2^7
+ * take one byte, under 2^14 two bytes and so on. The cache is emptied as
+ * soon as it sees the graph has been rebuilt, which mustn't happen while a
+ * query is running. Every method is thread-safe; misses run on searches
+ * taken from a SearchPool, outside of the lock, so two threads missing the
+ * same source may both solve it.
+ * @see Dijkstra
+ * @see SearchPool
+ */
+public class DistanceCache
+{
+    //-------------------------------------------------------------------------
+    // CONSTANTS
+    //-------------------------------------------------------------------------
+
+    // Bytes taken by a cached row besides its distances: the entry, the key
+    // and the array headers
+    private static final int ROW_OVERHEAD = 64;
+
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Graph to search the shortest paths for
+    private final Graph graph;
+
+    // Pool of searches on the current version of the graph, used on misses
+    private SearchPool pool;
+
+    // Largest number of bytes the cached rows may take up
+    private final long maxBytes;
+
+    // Whether rows are compressed as variable-length bytes
+    private final boolean compressed;
+
+    // Cached rows by source id, int[] or byte[], in order of last access
+    private final LinkedHashMap<Integer, Object> rows;
+
+    // Number of bytes taken by the cached rows
+    private long bytes;
+
+    // Version of the graph the cached rows were computed on
+    private int version;
+
+    // Number of queries answered from and not from the cache
+    private long hits;
+    private long misses;
+
+    // Number of rows evicted to stay under maxBytes
+    private long evictions;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Creates an empty cache of the distances on the given graph.
+     * @param graph Graph to search the shortest paths for.
+     * @param maxBytes Largest number of bytes the cached rows may take up.
+     * @param compressed Whether to compress the cached rows.
+     */
+    public DistanceCache(Graph graph, long maxBytes, boolean compressed)
+    {
+        this.graph = graph;
+        this.pool = new SearchPool(graph);
+        this.maxBytes = maxBytes;
+        this.compressed = compressed;
+        this.rows = new LinkedHashMap<Integer, Object>(16, 0.75f, true);
+        this.version = graph.getVersion();
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Gets the shortest distances from the vertex with id s, from the cache
+     * if they are in it or solving Dijkstra's algorithm and caching them
+     * otherwise.
+     * @param s Id of the starting vertex in graph.
+     * @return New array with the shortest distance from s to the vertex with
+     *         id i + 1 in position i, INFINITY if it isn't reachable.
+     */
+    public int [] solve(int s)
+    {
+        Object row = this.get(s);
+        if(row != null)
+        {
+            return this.decode(row);
+        }
+        SearchPool pool = this.getPool();
+        DijkstraSearch search = pool.acquire();
+        int [] paths;
+        try
+        {
+            paths = search.solve(s, Dijkstra.HEAP);
+        }
+        finally
+        {
+            pool.release(search);
+        }
+        this.put(s, this.compressed ? DistanceCache.compress(paths) :
+                paths.clone());
+        return paths;
+    }
+
+    /**
+     * Gets the length of the shortest path from vertex with id s to vertex
+     * with id t, caching all the distances from s.
+     * @param s Id of the starting vertex in graph.
+     * @param t Id of the target vertex in graph.
+     * @return Shortest distance from s to t, INFINITY if t isn't reachable.
+     */
+    public int distance(int s, int t)
+    {
+        return this.solve(s)[t - 1];
+    }
+
+    /**
+     * Gets the number of queries answered from the cache.
+     * @return Number of hits.
+     */
+    public synchronized long getHits()
+    {
+        return this.hits;
+    }
+
+    /**
+     * Gets the number of queries that had to solve Dijkstra's algorithm.
+     * @return Number of misses.
+     */
+    public synchronized long getMisses()
+    {
+        return this.misses;
+    }
+
+    /**
+     * Gets the number of rows evicted to keep the cache under its size.
+     * @return Number of evictions.
+     */
+    public synchronized long getEvictions()
+    {
+        return this.evictions;
+    }
+
+    /**
+     * Gets the number of sources whose distances are cached.
+     * @return Number of rows cached.
+     */
+    public synchronized int size()
+    {
+        return this.rows.size();
+    }
+
+    /**
+     * Gets the number of bytes taken by the cached rows, as estimated by
+     * this cache.
+     * @return Number of bytes cached.
+     */
+    public synchronized long getBytes()
+    {
+        return this.bytes;
+    }
+
+    /**
+     * Removes every row from the cache, keeping the counters.
+     */
+    public synchronized void clear()
+    {
+        this.rows.clear();
+        this.bytes = 0;
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Gets the pool of searches on the current version of the graph.
+     * @return Pool of searches on the graph.
+     */
+    private synchronized SearchPool getPool()
+    {
+        return this.pool;
+    }
+
+    /**
+     * Looks for the row of the given source, counting a hit or a miss. If
+     * the graph has been rebuilt, empties the cache and drops the searches
+     * on the old version first.
+     * @param s Id of the source to look for.
+     * @return Row cached for the source, null if none.
+     */
+    private synchronized Object get(int s)
+    {
+        int version = this.graph.getVersion();
+        if(version != this.version)
+        {
+            this.clear();
+            this.pool = new SearchPool(this.graph);
+            this.version = version;
+        }
+        Object row = this.rows.get(s);
+        if(row == null)
+        {
+            this.misses++;
+        }
+        else
+        {
+            this.hits++;
+        }
+        return row;
+    }
+
+    /**
+     * Caches the given row for the given source, evicting the least recently
+     * used rows while the cache takes up more than maxBytes. Rows larger
+     * than maxBytes by themselves aren't cached.
+     * @param s Id of the source of the row.
+     * @param row Row to cache, int[] or byte[].
+     */
+    private synchronized void put(int s, Object row)
+    {
+        long rowBytes = DistanceCache.sizeOf(row);
+        if(rowBytes > this.maxBytes ||
+                this.version != this.graph.getVersion())
+        {
+            return;
+        }
+        Object old = this.rows.put(s, row);
+        this.bytes += rowBytes - ((old == null) ? 0 : sizeOf(old));
+        Iterator<Map.Entry<Integer, Object>> iterator =
+                this.rows.entrySet().iterator();
+        while(this.bytes > this.maxBytes)
+        {
+            this.bytes -= DistanceCache.sizeOf(iterator.next().getValue());
+            iterator.remove();
+            this.evictions++;
+        }
+    }
+
+    /**
+     * Gets a new array with the distances of the given row.
+     * @param row Row cached, int[] or byte[].
+     * @return New array with the distances of the row.
+     */
+    private int [] decode(Object row)
+    {
+        if(!(row instanceof byte[]))
+        {
+            return ((int []) row).clone();
+        }
+        byte [] bytes = (byte []) row;
+        int [] paths = new int[this.graph.getN()];
+        int j = 0;
+        for(int i = 0; i < paths.length; i++)
+        {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do
+            {
+                b = bytes[j++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            }
+            while(b < 0);
+            paths[i] = value;
+        }
+        return paths;
+    }
+
+    /**
+     * Compresses the given distances as variable-length bytes: 7 bits of the
+     * distance per byte, lowest first, with the highest bit of every byte
+     * but the last one set.
+     * @param paths Distances to compress, all of them >= 0.
+     * @return Compressed distances.
+     */
+    private static byte [] compress(int [] paths)
+    {
+        int length = 0;
+        for(int value : paths)
+        {
+            do
+            {
+                length++;
+                value >>>= 7;
+            }
+            while(value != 0);
+        }
+        byte [] bytes = new byte[length];
+        int j = 0;
+        for(int value : paths)
+        {
+            while((value & ~0x7F) != 0)
+            {
+                bytes[j++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[j++] = (byte) value;
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the number of bytes taken by the given row.
+     * @param row Row cached, int[] or byte[].
+     * @return Number of bytes taken by the row.
+     */
+    private static long sizeOf(Object row)
+    {
+        if(row instanceof byte[])
+        {
+            return ROW_OVERHEAD + ((byte []) row).length;
+        }
+        return ROW_OVERHEAD + 4L * ((int []) row).length;
+    }
+}
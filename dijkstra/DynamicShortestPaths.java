@@ -0,0 +1,380 @@
+/**
+ * $Id: DynamicShortestPaths.java, v 1.0 17/10/26 23:55 oscarfabra Exp $
+ * {@code DynamicShortestPaths} Is a class that keeps the shortest paths from
+ * a source of a graph whose edge lengths change, repairing them after each
+ * change instead of solving them again. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.util.Arrays;
+
+/**
+ * Class that keeps the shortest distances from a source vertex of a graph
+ * and the shortest path tree that reaches them, and repairs both when the
+ * lengths of some edges change. Only the vertices whose shortest path may
+ * have changed are searched again:
+ * <ul>
+ * <li>Lengthening an edge of the tree, u -> v with u the predecessor of v,
+ * invalidates the distances of every vertex in the subtree of v. Each of
+ * them is given the best distance through an edge from a vertex outside the
+ * invalidated subtrees. Lengthening any other edge changes nothing.</li>
+ * <li>Shortening an edge u -> v only matters if it gives v a shorter
+ * path.</li>
+ * </ul>
+ * The vertices given a new distance either way are then the starting
+ * points of one Dijkstra search that only goes on while it keeps lowering
+ * distances, so a batch of changes is repaired at once. The subtree of
+ * each vertex is kept as a doubly linked list of its children, so a vertex
+ * moves to another predecessor in O(1).
+ * @see Dijkstra
+ */
+public class DynamicShortestPaths
+{
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Graph whose shortest paths are kept
+    private final Graph graph;
+
+    // Id of the source vertex
+    private final int source;
+
+    // Shortest distance from the source to each vertex by id, INFINITY if
+    // not reachable
+    private final int [] distances;
+
+    // Id of the vertex before each vertex with id i + 1 on its shortest
+    // path in position i, 0 for the source and unreachable vertices, as
+    // written by DijkstraSearch.solve
+    private final int [] predecessors;
+
+    // First child in the shortest path tree of each vertex by id, and next
+    // and previous siblings of each vertex, 0 if none
+    private final int [] firstChild;
+    private final int [] nextSibling;
+    private final int [] previousSibling;
+
+    // Heap of the vertices whose distance was lowered by the repair but
+    // whose edges haven't been relaxed yet
+    private final IndexedHeap heap;
+
+    // Repair in which each vertex was last invalidated
+    private final int [] invalidated;
+
+    // Ids of the vertices invalidated by the current repair
+    private final int [] subtrees;
+
+    // Number of repairs so far
+    private int repairs;
+
+    // Number of vertices whose distance was set again by the last repair
+    private int repairedCount;
+
+    // Version of the graph the shortest paths are kept for
+    private int version;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Solves the shortest paths from the vertex with id s in the given graph
+     * and builds its shortest path tree.
+     * @param graph Graph whose shortest paths to keep, its arriving edges
+     *              are built if they weren't.
+     * @param s Id of the source vertex in graph, s in [1...n].
+     */
+    public DynamicShortestPaths(Graph graph, int s)
+    {
+        int n = graph.getN();
+        this.graph = graph;
+        this.source = s;
+        graph.buildReverseAdjacencies();
+        int [] paths = new int[n];
+        this.predecessors = new int[n];
+        new DijkstraSearch(graph).solve(s, Dijkstra.HEAP, paths,
+                this.predecessors);
+        this.distances = new int[n + 1];
+        System.arraycopy(paths, 0, this.distances, 1, n);
+        this.firstChild = new int[n + 1];
+        this.nextSibling = new int[n + 1];
+        this.previousSibling = new int[n + 1];
+        for(int v = 1; v <= n; v++)
+        {
+            if(this.predecessors[v - 1] != 0)
+            {
+                this.link(v, this.predecessors[v - 1]);
+            }
+        }
+        this.heap = new IndexedHeap(n);
+        this.invalidated = new int[n + 1];
+        this.subtrees = new int[n];
+        this.version = graph.getVersion();
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Gets the id of the source vertex.
+     * @return Id of the source vertex.
+     */
+    public int getSource()
+    {
+        return this.source;
+    }
+
+    /**
+     * Gets the shortest distance from the source to the vertex with the
+     * given id.
+     * @param vId Id of the vertex to look for.
+     * @return Shortest distance to the vertex, INFINITY if not reachable.
+     */
+    public int getDistance(int vId)
+    {
+        return this.distances[vId];
+    }
+
+    /**
+     * Gets the shortest distances from the source to every vertex.
+     * @return New array with the shortest distance from the source to the
+     *         vertex with id i + 1 in position i, INFINITY if it isn't
+     *         reachable, the same as Dijkstra.solve.
+     */
+    public int [] getDistances()
+    {
+        return Arrays.copyOfRange(this.distances, 1, this.distances.length);
+    }
+
+    /**
+     * Gets the shortest path from the source to the vertex with the given
+     * id, following the shortest path tree.
+     * @param tId Id of the target vertex.
+     * @return Ids of the vertices on the path, the source first and tId
+     *         last, or an empty array if tId isn't reachable.
+     */
+    public int [] getPath(int tId)
+    {
+        return Dijkstra.path(this.source, tId, this.predecessors);
+    }
+
+    /**
+     * Gets the number of vertices whose distance was set again by the last
+     * update.
+     * @return Number of vertices repaired.
+     */
+    public int getRepairedCount()
+    {
+        return this.repairedCount;
+    }
+
+    /**
+     * Changes the length of the edge at the given position of the graph and
+     * repairs the shortest paths.
+     * @param index Position of the edge in the graph, index in [0...m-1].
+     * @param length New length of the edge, length >= 0.
+     */
+    public void updateLength(int index, int length)
+    {
+        this.updateLengths(new int[] {index}, new int[] {length});
+    }
+
+    /**
+     * Changes the lengths of the edges at the given positions of the graph
+     * and repairs the shortest paths once for all of them.
+     * @param edges Positions of the edges in the graph. An edge may appear
+     *              more than once, its last length is kept.
+     * @param lengths New length of each edge, lengths[i] for edges[i], all
+     *                of them >= 0.
+     * @throws IllegalStateException If the graph was changed since the
+     *                               shortest paths were last kept, other
+     *                               than through this object.
+     */
+    public void updateLengths(int [] edges, int [] lengths)
+    {
+        Graph graph = this.graph;
+        if(this.version != graph.getVersion())
+        {
+            throw new IllegalStateException("The graph was changed outside " +
+                    "of the dynamic shortest paths.");
+        }
+        int repair = ++this.repairs;
+        this.repairedCount = 0;
+
+        // Changes the lengths, marking the subtree under each lengthened
+        // edge of the tree
+        int count = 0;
+        for(int k = 0; k < edges.length; k++)
+        {
+            int uId = graph.getEdgeTail(edges[k]);
+            int vId = graph.getHead(edges[k]);
+            int old = graph.getLength(edges[k]);
+            graph.setLength(edges[k], lengths[k]);
+            if(lengths[k] > old && this.predecessors[vId - 1] == uId &&
+                    this.invalidated[vId] != repair)
+            {
+                count = this.markSubtree(vId, repair, count);
+            }
+        }
+        this.version = graph.getVersion();
+
+        // Detaches the vertices marked from the tree, forgetting their
+        // distances
+        for(int i = 0; i < count; i++)
+        {
+            int vId = this.subtrees[i];
+            this.unlink(vId);
+            this.distances[vId] = Dijkstra.INFINITY;
+        }
+
+        // Gives each vertex marked its best distance through a vertex not
+        // marked, and each head of a changed edge its distance through it
+        for(int i = 0; i < count; i++)
+        {
+            int vId = this.subtrees[i];
+            for(int j = graph.getTailsStart(vId); j < graph.getTailsEnd(vId);
+                j++)
+            {
+                int uId = graph.getTail(j);
+                if(this.invalidated[uId] != repair)
+                {
+                    this.relax(vId, Dijkstra.add(this.distances[uId],
+                            graph.getTailLength(j)), uId);
+                }
+            }
+        }
+        for(int k = 0; k < edges.length; k++)
+        {
+            int uId = graph.getEdgeTail(edges[k]);
+            this.relax(graph.getHead(edges[k]), Dijkstra.add(
+                    this.distances[uId], graph.getLength(edges[k])), uId);
+        }
+
+        // Spreads the new distances for as long as they lower others
+        while(!this.heap.isEmpty())
+        {
+            int wId = this.heap.extractMin();
+            int wScore = this.distances[wId];
+            int end = graph.getHeadsEnd(wId);
+            for(int i = graph.getHeadsStart(wId); i < end; i++)
+            {
+                this.relax(graph.getHead(i), Dijkstra.add(wScore,
+                        graph.getLength(i)), wId);
+            }
+        }
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Marks the vertex with the given id and every vertex below it in the
+     * shortest path tree as invalidated by the given repair, adding them to
+     * the subtrees array.
+     * @param vId Id of the root of the subtree.
+     * @param repair Number of the current repair.
+     * @param count Number of vertices in subtrees so far.
+     * @return Number of vertices in subtrees after adding the subtree.
+     */
+    private int markSubtree(int vId, int repair, int count)
+    {
+        int first = count;
+        this.invalidated[vId] = repair;
+        this.subtrees[count++] = vId;
+        for(int i = first; i < count; i++)
+        {
+            for(int c = this.firstChild[this.subtrees[i]]; c != 0;
+                c = this.nextSibling[c])
+            {
+                if(this.invalidated[c] != repair)
+                {
+                    this.invalidated[c] = repair;
+                    this.subtrees[count++] = c;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Lowers the distance of the vertex with the given id to the given score
+     * if it is smaller, moving it under the given predecessor in the tree
+     * and inserting it into the heap or decreasing its key.
+     * @param vId Id of the vertex reached.
+     * @param vScore Length of the path that reaches it.
+     * @param uId Id of the vertex before it on that path.
+     */
+    private void relax(int vId, int vScore, int uId)
+    {
+        if(vScore >= this.distances[vId])
+        {
+            return;
+        }
+        this.distances[vId] = vScore;
+        this.unlink(vId);
+        this.link(vId, uId);
+        if(this.heap.contains(vId))
+        {
+            this.heap.decreaseKey(vId, vScore);
+        }
+        else
+        {
+            this.heap.insert(vId, vScore);
+            this.repairedCount++;
+        }
+    }
+
+    /**
+     * Adds the vertex with id vId to the children of the vertex with id
+     * uId, making uId its predecessor.
+     * @param vId Id of the child.
+     * @param uId Id of the new predecessor.
+     */
+    private void link(int vId, int uId)
+    {
+        int first = this.firstChild[uId];
+        this.nextSibling[vId] = first;
+        this.previousSibling[vId] = 0;
+        if(first != 0)
+        {
+            this.previousSibling[first] = vId;
+        }
+        this.firstChild[uId] = vId;
+        this.predecessors[vId - 1] = uId;
+    }
+
+    /**
+     * Removes the vertex with the given id from the children of its
+     * predecessor, if it has one, leaving it without predecessor.
+     * @param vId Id of the vertex.
+     */
+    private void unlink(int vId)
+    {
+        int uId = this.predecessors[vId - 1];
+        if(uId == 0)
+        {
+            return;
+        }
+        int previous = this.previousSibling[vId];
+        int next = this.nextSibling[vId];
+        if(previous == 0)
+        {
+            this.firstChild[uId] = next;
+        }
+        else
+        {
+            this.nextSibling[previous] = next;
+        }
+        if(next != 0)
+        {
+            this.previousSibling[next] = previous;
+        }
+        this.predecessors[vId - 1] = 0;
+    }
+}
@@ -4,16 +4,23 @@
  * computing Dijkstra's shortest path algorithm.
  *
  * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
- * @version 1.3
+ * @version 1.7
  * @since 24/06/14
  */
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Class that represents a directed graph with n vertices and m edges for
- * computing Dijkstra's shortest path algorithm.
+ * computing Dijkstra's shortest path algorithm. Adjacencies are stored in
+ * compressed sparse row (CSR) form: for each vertex v, the edges leaving v
+ * are the positions [headsStart[v]...headsStart[v + 1] - 1] of the heads and
+ * lengths arrays, and the edges arriving at v are the positions
+ * [tailsStart[v]...tailsStart[v + 1] - 1] of the tails and tailLengths
+ * arrays. Vertex ids are in [1...n]. The arrays of arriving edges are only
+ * built when an algorithm asks for them.
  */
 public class Graph
 {
@@ -21,23 +28,37 @@ public class Graph
     // ATTRIBUTES
     //-------------------------------------------------------------------------
 
-    // Number of vertices, n = V.size()
+    // Number of vertices, vertex ids are in [1...n]
     private int n;
 
-    // Number of edges, m = E.size()
+    // Number of edges, m = headsStart[n + 1]
     private int m;
 
-    // List of vertices
-    private List<Vertex> V;
+    // Offsets in heads and lengths of the edges leaving each vertex, size
+    // n + 2
+    private int [] headsStart;
+
+    // Head vertex of the edges leaving each vertex, grouped by tail
+    private int [] heads;
+
+    // Length of the edges leaving each vertex, grouped by tail
+    private int [] lengths;
 
-    // List of edges
-    private List<Edge> E;
+    // Offsets in tails and tailLengths of the edges arriving at each vertex,
+    // size n + 2. Only built on demand by buildReverseAdjacencies()
+    private int [] tailsStart;
 
-    // Each vertex in V points to its arriving edges
-    private List<Integer>[] vertexEdgesArriving;
+    // Tail vertex of the edges arriving at each vertex, grouped by head.
+    // Only built on demand by buildReverseAdjacencies()
+    private int [] tails;
 
-    // Each vertex in V points to its leaving edges
-    private List<Integer>[] vertexEdgesLeaving;
+    // Length of the edges arriving at each vertex, grouped by head. Only
+    // built on demand by buildReverseAdjacencies()
+    private int [] tailLengths;
+
+    // Number of times the edges of this graph have been set or changed, so
+    // results computed on an earlier version can be told apart
+    private volatile int version;
 
     //-------------------------------------------------------------------------
     // CONSTRUCTORS
@@ -50,42 +71,43 @@ public class Graph
      */
     public Graph(int n, List<Edge>[] edgesArray)
     {
-        // Initializes the list of vertices, and vertexEdgesArriving and
-        // vertexEdgesLeaving arrays of lists, O(n) algorithm
-        this.n = n;
-        int newVertexId = 1;
-        this.V = new ArrayList<Vertex>(this.n);
-        this.vertexEdgesArriving = (ArrayList<Integer>[])new ArrayList[this.n];
-        this.vertexEdgesLeaving = (ArrayList<Integer>[])new ArrayList[this.n];
+        // Turns the size of each list into offsets, headsStart[v] is the
+        // first position of vertex v
+        int [] headsStart = new int[n + 2];
         for(int i = 0; i < n; i++)
         {
-            this.V.add(i, new Vertex(newVertexId++));
-            this.vertexEdgesArriving[i] = new ArrayList<Integer>();
-            this.vertexEdgesLeaving[i] = new ArrayList<Integer>();
+            headsStart[i + 2] = headsStart[i + 1] + edgesArray[i].size();
         }
 
-        // Initializes list of edges, and vertexEdgesArriving and
-        // vertexEdgesLeaving array of lists, O(n*m) algorithm
-        this.E = new ArrayList<Edge>();
-        int i = 0;
+        // Copies the head and length of each edge to its position
+        int [] heads = new int[headsStart[n + 1]];
+        int [] lengths = new int[heads.length];
+        int j = 0;
         for(List<Edge> vertexEdges : edgesArray)
         {
             for(Edge edge : vertexEdges)
             {
-                // Adds the edge to E
-                this.E.add(edge);
-                // Adds the edge's id to its corresponding list in
-                // vertexEdgesArriving
-                this.vertexEdgesArriving[edge.getHead() - 1].add(edge.getId());
-                // Adds the edge's id to its corresponding list in
-                // vertexEdgesLeaving
-                this.vertexEdgesLeaving[i].add(edge.getId());
+                heads[j] = edge.getHead();
+                lengths[j++] = edge.getLength();
             }
-            i++;
         }
+        this.init(n, headsStart, heads, lengths);
+    }
 
-        // Assigns m as the size of E
-        this.m = this.E.size();
+    /**
+     * Creates a new graph from the given CSR arrays of edges leaving each
+     * vertex, which are used without copying them.
+     * <b>Pre: </b>Vertex ids are in [1...n], headsStart has n + 2 positions
+     * and the edges leaving vertex v are in positions [headsStart[v]...
+     * headsStart[v + 1] - 1] of heads and lengths.
+     * @param n Number of vertices of the graph.
+     * @param headsStart Offsets of the edges leaving each vertex.
+     * @param heads Head vertex of the edges leaving each vertex.
+     * @param lengths Length of the edges leaving each vertex, lengths >= 0.
+     */
+    public Graph(int n, int [] headsStart, int [] heads, int [] lengths)
+    {
+        this.init(n, headsStart, heads, lengths);
     }
 
     /**
@@ -153,27 +175,8 @@ public class Graph
      */
     public void copy(Graph that)
     {
-        // Copies the list of vertices, vertexEdgesArriving and
-        // vertexEdgesLeaving arrays of lists
-        this.n = that.n;
-        this.V = new ArrayList<Vertex>();
-        this.vertexEdgesArriving = (ArrayList<Integer>[])new ArrayList[that.n];
-        for(int i = 0; i < that.n; i++)
-        {
-            this.V.add(new Vertex(that.V.get(i)));
-            this.vertexEdgesArriving[i] =
-                    new ArrayList<Integer>(that.vertexEdgesArriving[i]);
-            this.vertexEdgesLeaving[i] =
-                    new ArrayList<Integer>(that.vertexEdgesLeaving[i]);
-        }
-
-        // Copies the list of edges
-        this.m = that.m;
-        this.E = new ArrayList<Edge>();
-        for(int i = 0; i < that.m; i++)
-        {
-            this.E.add(new Edge(that.E.get(i)));
-        }
+        this.init(that.n, that.headsStart.clone(), that.heads.clone(),
+                that.lengths.clone());
     }
 
     /**
@@ -195,34 +198,306 @@ public class Graph
     }
 
     /**
-     * Obtains and returns a list of the edges that point to the vertex with
+     * Gets the version of the edges of this graph, which changes every time
+     * they are set again, e.g. by copy(), or a length is changed.
+     * @return Version of the edges of this graph.
+     */
+    public int getVersion()
+    {
+        return this.version;
+    }
+
+    /**
+     * Gets the position of the first edge leaving the vertex with the given
+     * id.
+     * @param vId Id of the vertex to look for.
+     * @return Position of the first edge leaving the given vertex.
+     */
+    public int getHeadsStart(int vId)
+    {
+        return this.headsStart[vId];
+    }
+
+    /**
+     * Gets the position right after the last edge leaving the vertex with
      * the given id.
+     * @param vId Id of the vertex to look for.
+     * @return Position after the last edge leaving the given vertex.
+     */
+    public int getHeadsEnd(int vId)
+    {
+        return this.headsStart[vId + 1];
+    }
+
+    /**
+     * Gets the head vertex of the edge at the given position.
+     * @param index Position of the edge, index in [0...m-1].
+     * @return Id of the head vertex of the edge.
+     */
+    public int getHead(int index)
+    {
+        return this.heads[index];
+    }
+
+    /**
+     * Gets the length of the edge at the given position.
+     * @param index Position of the edge, index in [0...m-1].
+     * @return Length of the edge.
+     */
+    public int getLength(int index)
+    {
+        return this.lengths[index];
+    }
+
+    /**
+     * Gets the tail vertex of the edge at the given position, searching the
+     * offsets of the edges leaving each vertex in O(log n) time.
+     * @param index Position of the edge, index in [0...m-1].
+     * @return Id of the tail vertex of the edge.
+     */
+    public int getEdgeTail(int index)
+    {
+        // Looks for the last vertex whose edges start at or before index
+        int low = 1;
+        int high = this.n;
+        while(low < high)
+        {
+            int middle = (low + high + 1) >>> 1;
+            if(this.headsStart[middle] <= index)
+            {
+                low = middle;
+            }
+            else
+            {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the position of the first edge from the vertex with id uId to the
+     * vertex with id vId.
+     * @param uId Id of the tail vertex.
+     * @param vId Id of the head vertex.
+     * @return Position of the edge, -1 if there's no such edge.
+     */
+    public int getEdge(int uId, int vId)
+    {
+        for(int i = this.headsStart[uId]; i < this.headsStart[uId + 1]; i++)
+        {
+            if(this.heads[i] == vId)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Changes the length of the edge at the given position in place, and of
+     * its arriving edge if the reverse adjacencies are built, and moves the
+     * graph to a new version. Mustn't be called while a search runs on this
+     * graph.
+     * @param index Position of the edge, index in [0...m-1].
+     * @param length New length of the edge, length >= 0.
+     */
+    public synchronized void setLength(int index, int length)
+    {
+        int old = this.lengths[index];
+        this.lengths[index] = length;
+        if(this.tails != null)
+        {
+            // Any arriving edge from the same tail with the old length will
+            // do, parallel edges with equal lengths can't be told apart
+            int uId = this.getEdgeTail(index);
+            int vId = this.heads[index];
+            for(int j = this.tailsStart[vId]; j < this.tailsStart[vId + 1];
+                j++)
+            {
+                if(this.tails[j] == uId && this.tailLengths[j] == old)
+                {
+                    this.tailLengths[j] = length;
+                    break;
+                }
+            }
+        }
+        this.version++;
+    }
+
+    /**
+     * Builds the arrays with the edges arriving at each vertex, if they
+     * haven't been built yet. Algorithms that only walk edges forwards never
+     * call it, so the reverse adjacencies don't take up memory for them.
+     */
+    public synchronized void buildReverseAdjacencies()
+    {
+        if(this.tails != null)
+        {
+            return;
+        }
+        // Counts the in-degree of each vertex in tailsStart[v + 1]
+        int [] tailsStart = new int[this.n + 2];
+        int [] tails = new int[this.m];
+        int [] tailLengths = new int[this.m];
+        for(int i = 0; i < this.m; i++)
+        {
+            tailsStart[this.heads[i] + 1]++;
+        }
+        for(int v = 1; v <= this.n + 1; v++)
+        {
+            tailsStart[v] += tailsStart[v - 1];
+        }
+        // Walks through the edges leaving each vertex placing each tail in
+        // the next free position of its head
+        int [] next = Arrays.copyOf(tailsStart, this.n + 2);
+        for(int v = 1; v <= this.n; v++)
+        {
+            for(int i = this.headsStart[v]; i < this.headsStart[v + 1]; i++)
+            {
+                int j = next[this.heads[i]]++;
+                tails[j] = v;
+                tailLengths[j] = this.lengths[i];
+            }
+        }
+        this.tailsStart = tailsStart;
+        this.tailLengths = tailLengths;
+        this.tails = tails;
+    }
+
+    /**
+     * Gets the position of the first edge arriving at the vertex with the
+     * given id.
+     * <b>Pre: </b>buildReverseAdjacencies() has been called.
+     * @param vId Id of the vertex to look for.
+     * @return Position of the first edge arriving at the given vertex.
+     */
+    public int getTailsStart(int vId)
+    {
+        return this.tailsStart[vId];
+    }
+
+    /**
+     * Gets the position right after the last edge arriving at the vertex
+     * with the given id.
+     * <b>Pre: </b>buildReverseAdjacencies() has been called.
+     * @param vId Id of the vertex to look for.
+     * @return Position after the last edge arriving at the given vertex.
+     */
+    public int getTailsEnd(int vId)
+    {
+        return this.tailsStart[vId + 1];
+    }
+
+    /**
+     * Gets the tail vertex of the arriving edge at the given position.
+     * <b>Pre: </b>buildReverseAdjacencies() has been called.
+     * @param index Position of the arriving edge, index in [0...m-1].
+     * @return Id of the tail vertex of the edge.
+     */
+    public int getTail(int index)
+    {
+        return this.tails[index];
+    }
+
+    /**
+     * Gets the length of the arriving edge at the given position.
+     * <b>Pre: </b>buildReverseAdjacencies() has been called.
+     * @param index Position of the arriving edge, index in [0...m-1].
+     * @return Length of the edge.
+     */
+    public int getTailLength(int index)
+    {
+        return this.tailLengths[index];
+    }
+
+    /**
+     * Gets a new graph with the edges of this one reversed, so searching
+     * from a vertex in it finds the distances to that vertex in this one.
+     * @return Graph with an edge from v to u per edge from u to v.
+     */
+    public Graph reverse()
+    {
+        this.buildReverseAdjacencies();
+        return new Graph(this.n, this.tailsStart.clone(), this.tails.clone(),
+                this.tailLengths.clone());
+    }
+
+    /**
+     * Gets the largest length of the edges of this graph.
+     * @return Largest edge length, 0 if there are no edges.
+     */
+    public int getMaxLength()
+    {
+        int max = 0;
+        for(int i = 0; i < this.m; i++)
+        {
+            max = Math.max(max, this.lengths[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Obtains and returns a list of the edges that point to the vertex with
+     * the given id. Creates a new Edge object per edge, algorithms should
+     * walk the arriving edges by position instead.
      * @param vertexId Id of the vertex to look for.
      * @return List of edges that point to the given vertex.
      */
     public List<Edge> getVertexEdgesArriving(int vertexId)
     {
+        this.buildReverseAdjacencies();
         List<Edge> edgesArriving = new ArrayList<Edge>();
-        for(Integer edgeId : this.vertexEdgesArriving[vertexId - 1])
+        for(int i = this.tailsStart[vertexId];
+            i < this.tailsStart[vertexId + 1]; i++)
         {
-            edgesArriving.add(this.E.get(edgeId - 1));
+            edgesArriving.add(new Edge(i + 1, this.tails[i], vertexId,
+                    this.tailLengths[i]));
         }
         return edgesArriving;
     }
 
     /**
      * Obtains and returns a list of the edges that come out from the vertex
-     * with the given id.
+     * with the given id. Creates a new Edge object per edge, algorithms
+     * should walk the leaving edges by position instead.
      * @param vertexId Id of the vertex to look for.
      * @return List of edges that come out from the given vertex.
      */
     public List<Edge> getVertexEdgesLeaving(int vertexId)
     {
         List<Edge> edgesLeaving = new ArrayList<Edge>();
-        for(Integer edgeId : this.vertexEdgesLeaving[vertexId - 1])
+        for(int i = this.headsStart[vertexId];
+            i < this.headsStart[vertexId + 1]; i++)
         {
-            edgesLeaving.add(this.E.get(edgeId - 1));
+            edgesLeaving.add(new Edge(i + 1, vertexId, this.heads[i],
+                    this.lengths[i]));
         }
         return edgesLeaving;
     }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Initializes this graph with the given CSR arrays of edges leaving each
+     * vertex.
+     * @param n Number of vertices of the graph.
+     * @param headsStart Offsets of the edges leaving each vertex.
+     * @param heads Head vertex of the edges leaving each vertex.
+     * @param lengths Length of the edges leaving each vertex.
+     */
+    private void init(int n, int [] headsStart, int [] heads, int [] lengths)
+    {
+        this.n = n;
+        this.m = headsStart[n + 1];
+        this.headsStart = headsStart;
+        this.heads = heads;
+        this.lengths = lengths;
+        this.tailsStart = null;
+        this.tails = null;
+        this.tailLengths = null;
+        this.version++;
+    }
 }
@@ -0,0 +1,246 @@
+/**
+ * $Id: IndexedHeap.java, v 1.0 17/10/26 16:40 oscarfabra Exp $
+ * {@code IndexedHeap} Is a binary min-heap of vertex ids keyed by their
+ * scores, which supports decreasing the key of a vertex. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.2
+ * @since 17/10/26
+ */
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of the ids of the vertices of a graph with n vertices,
+ * keyed by their greedy scores. Keeps the position of each vertex in the
+ * heap, so its key can be decreased in O(log n) without searching for it.
+ * Everything is stored in primitive arrays indexed by vertex id, vertex ids
+ * are in [1...n].
+ */
+public class IndexedHeap
+{
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Number of vertices in the heap
+    private int size;
+
+    // Ids of the vertices in the heap, heap[0] has the smallest key
+    private int [] heap;
+
+    // Position of each vertex in heap, -1 if it isn't in the heap
+    private int [] positions;
+
+    // Key of each vertex, kept after it leaves the heap
+    private long [] keys;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Creates an empty heap for the vertices of a graph with n vertices.
+     * @param n Number of vertices of the graph.
+     */
+    public IndexedHeap(int n)
+    {
+        this.heap = new int[n];
+        this.positions = new int[n + 1];
+        this.keys = new long[n + 1];
+        Arrays.fill(this.positions, -1);
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Says whether the heap is empty.
+     * @return Whether there are no vertices in the heap.
+     */
+    public boolean isEmpty()
+    {
+        return this.size == 0;
+    }
+
+    /**
+     * Gets the number of vertices in the heap.
+     * @return Number of vertices in the heap.
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * Says whether the vertex with the given id is in the heap.
+     * @param vId Id of the vertex to look for.
+     * @return Whether the given vertex is in the heap.
+     */
+    public boolean contains(int vId)
+    {
+        return this.positions[vId] >= 0;
+    }
+
+    /**
+     * Gets the key of the vertex with the given id.
+     * <b>Pre: </b>The vertex is or has been in the heap.
+     * @param vId Id of the vertex to look for.
+     * @return Last key of the given vertex.
+     */
+    public long getKey(int vId)
+    {
+        return this.keys[vId];
+    }
+
+    /**
+     * Gets the vertex with the smallest key without removing it.
+     * <b>Pre: </b>The heap isn't empty.
+     * @return Id of the vertex with the smallest key.
+     */
+    public int peek()
+    {
+        return this.heap[0];
+    }
+
+    /**
+     * Inserts the vertex with the given id with the given key.
+     * <b>Pre: </b>The vertex isn't in the heap.
+     * @param vId Id of the vertex to insert.
+     * @param key Key of the vertex.
+     */
+    public void insert(int vId, long key)
+    {
+        this.keys[vId] = key;
+        this.heap[this.size] = vId;
+        this.positions[vId] = this.size;
+        this.siftUp(this.size++);
+    }
+
+    /**
+     * Decreases the key of the vertex with the given id.
+     * <b>Pre: </b>The vertex is in the heap and key <= its current key.
+     * @param vId Id of the vertex to update.
+     * @param key New key of the vertex.
+     */
+    public void decreaseKey(int vId, long key)
+    {
+        this.keys[vId] = key;
+        this.siftUp(this.positions[vId]);
+    }
+
+    /**
+     * Changes the key of the vertex with the given id, to a smaller or a
+     * larger one.
+     * <b>Pre: </b>The vertex is in the heap.
+     * @param vId Id of the vertex to update.
+     * @param key New key of the vertex.
+     */
+    public void updateKey(int vId, long key)
+    {
+        long old = this.keys[vId];
+        this.keys[vId] = key;
+        if(key < old)
+        {
+            this.siftUp(this.positions[vId]);
+        }
+        else
+        {
+            this.siftDown(this.positions[vId]);
+        }
+    }
+
+    /**
+     * Removes the vertex with the smallest key from the heap and returns it,
+     * its key is still available through getKey().
+     * <b>Pre: </b>The heap isn't empty.
+     * @return Id of the vertex with the smallest key.
+     */
+    public int extractMin()
+    {
+        int min = this.heap[0];
+        this.positions[min] = -1;
+        this.size--;
+        if(this.size > 0)
+        {
+            this.heap[0] = this.heap[this.size];
+            this.positions[this.heap[0]] = 0;
+            this.siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Removes every vertex from the heap, in time proportional to the
+     * number of vertices in it, so the heap can be reused.
+     */
+    public void clear()
+    {
+        for(int i = 0; i < this.size; i++)
+        {
+            this.positions[this.heap[i]] = -1;
+        }
+        this.size = 0;
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Moves the vertex at the given position up while its key is smaller
+     * than its parent's.
+     * @param i Position in heap of the vertex to move.
+     */
+    private void siftUp(int i)
+    {
+        int vId = this.heap[i];
+        long key = this.keys[vId];
+        while(i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+            int pId = this.heap[parent];
+            if(this.keys[pId] <= key)
+            {
+                break;
+            }
+            this.heap[i] = pId;
+            this.positions[pId] = i;
+            i = parent;
+        }
+        this.heap[i] = vId;
+        this.positions[vId] = i;
+    }
+
+    /**
+     * Moves the vertex at the given position down while its key is larger
+     * than any of its children's.
+     * @param i Position in heap of the vertex to move.
+     */
+    private void siftDown(int i)
+    {
+        int vId = this.heap[i];
+        long key = this.keys[vId];
+        int half = this.size >>> 1;
+        while(i < half)
+        {
+            int child = 2 * i + 1;
+            int cId = this.heap[child];
+            if(child + 1 < this.size &&
+                    this.keys[this.heap[child + 1]] < this.keys[cId])
+            {
+                cId = this.heap[++child];
+            }
+            if(key <= this.keys[cId])
+            {
+                break;
+            }
+            this.heap[i] = cId;
+            this.positions[cId] = i;
+            i = child;
+        }
+        this.heap[i] = vId;
+        this.positions[vId] = i;
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * $Id: Landmarks.java, v 1.0 17/10/26 21:40 oscarfabra Exp $
+ * {@code Landmarks} Is a class that keeps the distances from and to a few
+ * landmark vertices of a graph, which give lower bounds of the distance
+ * between any two vertices for A* queries. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.util.Random;
+
+/**
+ * Class that keeps the distances from and to k landmark vertices of a
+ * graph, computed once with Dijkstra's algorithm on the graph and on its
+ * reverse. By the triangle inequality, for any landmark L and vertices v
+ * and t, d(v, t) >= d(L, t) - d(L, v) and d(v, t) >= d(v, L) - d(t, L),
+ * and the largest of these differences over the landmarks is a lower bound
+ * of d(v, t) that A* uses to head towards t (the ALT algorithm). Landmarks
+ * are picked far from each other: each new one is the vertex whose closest
+ * landmark, counting the distances both ways, is the farthest.
+ * @see DijkstraSearch
+ */
+public class Landmarks
+{
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Ids of the landmark vertices
+    private final int [] ids;
+
+    // Distance from landmark i to the vertex with id v in from[(v - 1) * k
+    // + i], INFINITY if it isn't reachable. The distances of each vertex are
+    // next to each other, so a lower bound reads two short runs of memory
+    private final int [] from;
+
+    // Distance to landmark i from the vertex with id v in to[(v - 1) * k +
+    // i], INFINITY if it can't reach it
+    private final int [] to;
+
+    // Version of the graph the distances were computed on
+    private final int version;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Creates the landmarks with the given distances.
+     * @param ids Ids of the landmark vertices.
+     * @param from Distances from each landmark to each vertex.
+     * @param to Distances to each landmark from each vertex.
+     * @param version Version of the graph the distances were computed on.
+     */
+    private Landmarks(int [] ids, int [] from, int [] to, int version)
+    {
+        this.ids = ids;
+        this.from = from;
+        this.to = to;
+        this.version = version;
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC CLASS METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Picks k landmarks of the given graph far from each other, starting
+     * from a vertex picked at random with the given seed, and computes the
+     * distances from and to each of them.
+     * @param graph Graph to pick the landmarks from.
+     * @param k Number of landmarks, k in [1...n].
+     * @param seed Seed for picking the first vertex.
+     * @return Landmarks of the graph.
+     */
+    public static Landmarks select(Graph graph, int k, long seed)
+    {
+        int n = graph.getN();
+        DijkstraSearch forward = new DijkstraSearch(graph);
+        DijkstraSearch backward = new DijkstraSearch(graph.reverse());
+        int [] ids = new int[k];
+        int [][] from = new int[k][n];
+        int [][] to = new int[k][n];
+
+        // Distance, both ways, from each vertex to its closest landmark so
+        // far. The vertex picked at random acts as the first landmark, but
+        // is replaced by the farthest vertex from it
+        long [] closest = new long[n];
+        int next = new Random(seed).nextInt(n) + 1;
+        int [] fromNext = new int[n];
+        int [] toNext = new int[n];
+        forward.solve(next, Dijkstra.HEAP, fromNext);
+        backward.solve(next, Dijkstra.HEAP, toNext);
+        Landmarks.updateClosest(closest, fromNext, toNext, true);
+        for(int i = 0; i < k; i++)
+        {
+            // Picks the vertex farthest from its closest landmark
+            next = 1;
+            for(int v = 2; v <= n; v++)
+            {
+                if(closest[v - 1] > closest[next - 1])
+                {
+                    next = v;
+                }
+            }
+            ids[i] = next;
+            forward.solve(next, Dijkstra.HEAP, from[i]);
+            backward.solve(next, Dijkstra.HEAP, to[i]);
+            Landmarks.updateClosest(closest, from[i], to[i], i == 0);
+        }
+
+        // Lays the distances out by vertex
+        int [] fromByVertex = new int[n * k];
+        int [] toByVertex = new int[n * k];
+        for(int i = 0; i < k; i++)
+        {
+            for(int v = 0; v < n; v++)
+            {
+                fromByVertex[v * k + i] = from[i][v];
+                toByVertex[v * k + i] = to[i][v];
+            }
+        }
+        return new Landmarks(ids, fromByVertex, toByVertex,
+                graph.getVersion());
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Gets the number of landmarks k.
+     * @return Number of landmarks.
+     */
+    public int getCount()
+    {
+        return this.ids.length;
+    }
+
+    /**
+     * Gets the id of the i-th landmark.
+     * @param i Position of the landmark, i in [0...k-1].
+     * @return Id of the landmark vertex.
+     */
+    public int getLandmark(int i)
+    {
+        return this.ids[i];
+    }
+
+    /**
+     * Gets the version of the graph the distances were computed on.
+     * @return Version of the graph.
+     */
+    public int getVersion()
+    {
+        return this.version;
+    }
+
+    /**
+     * Gets a lower bound of the length of the shortest path from the vertex
+     * with id v to the vertex with id t. Distances to or from a landmark
+     * that are INFINITY give no bound, so they are skipped.
+     * @param v Id of the starting vertex.
+     * @param t Id of the target vertex.
+     * @return Lower bound of the distance from v to t, >= 0.
+     */
+    public int getLowerBound(int v, int t)
+    {
+        int k = this.ids.length;
+        int [] from = this.from;
+        int [] to = this.to;
+        int vStart = (v - 1) * k;
+        int tStart = (t - 1) * k;
+        int bound = 0;
+        for(int i = 0; i < k; i++)
+        {
+            int lt = from[tStart + i];
+            int lv = from[vStart + i];
+            if(lt != Dijkstra.INFINITY && lv != Dijkstra.INFINITY &&
+                    lt - lv > bound)
+            {
+                bound = lt - lv;
+            }
+            int vl = to[vStart + i];
+            int tl = to[tStart + i];
+            if(vl != Dijkstra.INFINITY && tl != Dijkstra.INFINITY &&
+                    vl - tl > bound)
+            {
+                bound = vl - tl;
+            }
+        }
+        return bound;
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Lowers the distance of each vertex to its closest landmark with the
+     * distances from and to a new landmark. Vertices that can't reach or be
+     * reached from the landmark count as far from it as possible.
+     * @param closest Distance of each vertex to its closest landmark.
+     * @param from Distances from the new landmark.
+     * @param to Distances to the new landmark.
+     * @param first Whether the new landmark replaces every previous one.
+     */
+    private static void updateClosest(long [] closest, int [] from, int [] to,
+                                      boolean first)
+    {
+        for(int i = 0; i < closest.length; i++)
+        {
+            long distance = (long) from[i] + to[i];
+            closest[i] = first ? distance : Math.min(closest[i], distance);
+        }
+    }
+}
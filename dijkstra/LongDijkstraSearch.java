@@ -0,0 +1,242 @@
+/**
+ * $Id: LongDijkstraSearch.java, v 1.0 17/10/26 23:40 oscarfabra Exp $
+ * {@code LongDijkstraSearch} Is a class that runs Dijkstra's shortest path
+ * queries on a graph with distances as longs, so long paths neither
+ * saturate nor overflow. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Class that runs Dijkstra's shortest path queries on a graph with the
+ * binary heap engine, the same way DijkstraSearch does, but keeping the
+ * scores and distances as longs. Vertices that can't be reached are marked
+ * with Dijkstra.UNREACHABLE instead of Dijkstra.INFINITY, which is no
+ * length of a real path: every edge length is an int, so a path of n - 1
+ * edges is far shorter than Long.MAX_VALUE and adding a length to a score
+ * can't overflow. The heap already keeps long keys, so the only extra cost
+ * is the wider distances array. Like DijkstraSearch, a search is meant to
+ * be used by one thread at a time and reused for many queries.
+ * @see Dijkstra
+ * @see DijkstraSearch
+ */
+public class LongDijkstraSearch
+{
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Graph to search the shortest paths for
+    private final Graph graph;
+
+    // Tentative distance of each vertex by id, UNREACHABLE if not reached
+    private final long [] distances;
+
+    // Set of the ids of the vertices processed so far, X
+    private final BitSet settled;
+
+    // Heap on which to store vertices reached but not yet processed,
+    // keyed by their greedy scores
+    private final IndexedHeap heap;
+
+    // Ids of the vertices reached, in order of first reach
+    private final int [] reached;
+
+    // Number of vertices reached
+    private int reachedCount;
+
+    // Number of vertices settled by the last query
+    private int settledCount;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Creates a new search on the given graph.
+     * @param graph Graph to search the shortest paths for.
+     */
+    public LongDijkstraSearch(Graph graph)
+    {
+        int n = graph.getN();
+        this.graph = graph;
+        this.distances = new long[n + 1];
+        Arrays.fill(this.distances, Dijkstra.UNREACHABLE);
+        this.settled = new BitSet(n + 1);
+        this.heap = new IndexedHeap(n);
+        this.reached = new int[n];
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Gets the graph this search runs on.
+     * @return Graph to search the shortest paths for.
+     */
+    public Graph getGraph()
+    {
+        return this.graph;
+    }
+
+    /**
+     * Gets the number of vertices settled by the last query.
+     * @return Number of vertices settled.
+     */
+    public int getSettledCount()
+    {
+        return this.settledCount;
+    }
+
+    /**
+     * Solves Dijkstra's shortest path algorithm starting on vertex with id
+     * s.
+     * @param s Id of the starting vertex in graph, s in [1...n].
+     * @return New array with the shortest distance from s to the vertex with
+     *         id i + 1 in position i, UNREACHABLE if it isn't reachable.
+     */
+    public long [] solve(int s)
+    {
+        long [] paths = new long[this.graph.getN()];
+        this.solve(s, paths, null);
+        return paths;
+    }
+
+    /**
+     * Solves Dijkstra's shortest path algorithm starting on vertex with id
+     * s, writing the distances and, if asked to, the predecessor of each
+     * vertex on its shortest path in the given arrays.
+     * @param s Id of the starting vertex in graph, s in [1...n].
+     * @param paths Array of n positions where to write the shortest distance
+     *              from s to the vertex with id i + 1 in position i,
+     *              UNREACHABLE if it isn't reachable.
+     * @param predecessors Array of n positions where to write the id of the
+     *                     vertex before the vertex with id i + 1 on its
+     *                     shortest path from s in position i, 0 if it is s
+     *                     or isn't reachable; or null not to record them.
+     */
+    public void solve(int s, long [] paths, int [] predecessors)
+    {
+        if(predecessors != null)
+        {
+            Arrays.fill(predecessors, 0);
+        }
+        this.search(s, 0, predecessors);
+        System.arraycopy(this.distances, 1, paths, 0, paths.length);
+        this.reset();
+    }
+
+    /**
+     * Gets the length of the shortest path from vertex with id s to vertex
+     * with id t, stopping as soon as t is settled.
+     * @param s Id of the starting vertex in graph.
+     * @param t Id of the target vertex in graph.
+     * @return Shortest distance from s to t, UNREACHABLE if t isn't
+     *         reachable.
+     */
+    public long distance(int s, int t)
+    {
+        this.search(s, t, null);
+        long distance = this.distances[t];
+        this.reset();
+        return distance;
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Runs Dijkstra's shortest path algorithm from vertex with id s keeping
+     * the vertices reached but not yet explored in an indexed binary heap,
+     * until every reachable vertex or the given target is settled.
+     * @param s Id of the starting vertex in graph.
+     * @param t Id of the target vertex, 0 to settle every vertex.
+     * @param predecessors Array where to write the predecessor of the
+     *                     vertex with id i + 1 in position i, or null.
+     */
+    private void search(int s, int t, int [] predecessors)
+    {
+        Graph graph = this.graph;
+        long [] distances = this.distances;
+        this.settledCount = 0;
+        this.relax(s, 0);
+        while(!this.heap.isEmpty())
+        {
+            // Extracts the minimum path vertex not yet explored
+            int wId = this.heap.extractMin();
+            long wScore = distances[wId];
+            this.settled.set(wId);
+            this.settledCount++;
+            if(wId == t)
+            {
+                break;
+            }
+
+            // Updates key to the implicated edges (those whose tail is in X,
+            // but their heads are in V - X)
+            int end = graph.getHeadsEnd(wId);
+            for(int i = graph.getHeadsStart(wId); i < end; i++)
+            {
+                int vId = graph.getHead(i);
+                if(this.relax(vId, wScore + graph.getLength(i)) &&
+                        predecessors != null)
+                {
+                    predecessors[vId - 1] = wId;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lowers the tentative distance of the vertex with the given id to the
+     * given score if it is smaller and the vertex isn't settled, inserting
+     * it into the heap or decreasing its key.
+     * @param vId Id of the vertex reached.
+     * @param vScore Length of the path that reaches it.
+     * @return Whether the tentative distance was lowered.
+     */
+    private boolean relax(int vId, long vScore)
+    {
+        if(vScore >= this.distances[vId] || this.settled.get(vId))
+        {
+            return false;
+        }
+        if(this.distances[vId] == Dijkstra.UNREACHABLE)
+        {
+            this.reached[this.reachedCount++] = vId;
+        }
+        this.distances[vId] = vScore;
+        if(this.heap.contains(vId))
+        {
+            this.heap.decreaseKey(vId, vScore);
+        }
+        else
+        {
+            this.heap.insert(vId, vScore);
+        }
+        return true;
+    }
+
+    /**
+     * Sets every vertex reached back to not reached and empties the heap,
+     * in time proportional to the number of vertices reached.
+     */
+    private void reset()
+    {
+        for(int i = 0; i < this.reachedCount; i++)
+        {
+            int vId = this.reached[i];
+            this.distances[vId] = Dijkstra.UNREACHABLE;
+            this.settled.clear(vId);
+        }
+        this.reachedCount = 0;
+        this.heap.clear();
+    }
+}
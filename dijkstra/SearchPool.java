@@ -0,0 +1,79 @@
+/**
+ * $Id: SearchPool.java, v 1.0 17/10/26 19:40 oscarfabra Exp $
+ * {@code SearchPool} Is a class that lends reusable Dijkstra searches on a
+ * graph to the threads running queries on it. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Class that keeps the idle searches on a graph, so threads running many
+ * queries reuse them instead of allocating the arrays of a search for each
+ * query. A thread acquires a search, runs its queries and releases it;
+ * there are never more searches than threads using the pool at once.
+ * @see DijkstraSearch
+ */
+public class SearchPool
+{
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Graph the searches run on
+    private final Graph graph;
+
+    // Searches not lent to any thread
+    private final ConcurrentLinkedQueue<DijkstraSearch> idle;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Creates an empty pool of searches on the given graph.
+     * @param graph Graph the searches run on.
+     */
+    public SearchPool(Graph graph)
+    {
+        this.graph = graph;
+        this.idle = new ConcurrentLinkedQueue<DijkstraSearch>();
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Gets the graph the searches of this pool run on.
+     * @return Graph the searches run on.
+     */
+    public Graph getGraph()
+    {
+        return this.graph;
+    }
+
+    /**
+     * Lends an idle search to the calling thread, creating a new one if none
+     * is idle.
+     * @return Search for the calling thread to use until it releases it.
+     */
+    public DijkstraSearch acquire()
+    {
+        DijkstraSearch search = this.idle.poll();
+        return (search == null) ? new DijkstraSearch(this.graph) : search;
+    }
+
+    /**
+     * Gives back the given search, which the calling thread mustn't use
+     * afterwards.
+     * @param search Search acquired from this pool.
+     */
+    public void release(DijkstraSearch search)
+    {
+        this.idle.offer(search);
+    }
+}
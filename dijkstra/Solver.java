@@ -4,16 +4,11 @@
  * algorithm from a file with the variables of a directed graph.
  *
  * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
- * @version 1.0
+ * @version 1.5
  * @since 24/06/14
  */
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Class that reads and solves Dijkstra's shortest path algorithm from a file
@@ -28,58 +23,67 @@ public class Solver
     // Stores the source vertex obtained from second program argument
     private static int s = 0;
 
+    // Engine used to find the shortest paths, obtained from the -engine=
+    // argument
+    private static int engine = Dijkstra.HEAP;
+
     //-------------------------------------------------------------------------
     // PUBLIC METHODS
     //-------------------------------------------------------------------------
 
     /**
      * Solves the given instance and prints the solution in standard output.
-     * @param lines Input list with the variables for the problem.
+     * @param graph Graph read from the input file.
      */
-    private static void solve(List<String> lines)
+    private static void solve(Graph graph)
     {
-        // Gets an array of lists of edges from the given lines. edgesArray[i]
-        // contains the list of edges whose tail is vertex with id i + 1, i in
-        // [0...n-1]
-        List<Edge>[] edgesArray = Graph.readEdgesArray(lines);
-
-        // Gets the length of the array
-        int n = edgesArray.length;
-
-        // Creates a new Graph object with the given parameters
-        Graph graph = new Graph(n, edgesArray);
-
-        // Computes the shortest paths from vertex 1 to all other vertices in
-        // the given graph. paths[i] contains the path from vertex 1 to vertex
-        // with id i + 1, i in [0...n-1]
-        int [] paths = Dijkstra.solve(Solver.s, graph);
-
-        System.out.println("The lengths of the shortest paths from vertex 1 " +
-                "to vertices 7, 37, 59, 82, 99, 115, 133, 165, 188, 197 are:");
-        System.out.print(paths[6] + ", " + paths[36] + ", ");
-        System.out.print(paths[58] + ", " + paths[81] + ", ");
-        System.out.print(paths[98] + ", " + paths[114] + ", ");
-        System.out.print(paths[132] + ", " + paths[164] + ", ");
-        System.out.print(paths[187] + ", " + paths[196] + ".");
+        // Computes the shortest paths from vertex s to the targets in the
+        // given graph. paths[i] contains the path from vertex s to vertex
+        // with id targets[i]. Dial's engine always computes all n distances,
+        // the others stop once the targets are settled
+        int [] targets = {7, 37, 59, 82, 99, 115, 133, 165, 188, 197};
+        int [] paths = new int[targets.length];
+        if(Solver.engine == Dijkstra.DIAL)
+        {
+            int [] allPaths = Dijkstra.solve(Solver.s, graph, Solver.engine);
+            for(int i = 0; i < targets.length; i++)
+            {
+                paths[i] = allPaths[targets[i] - 1];
+            }
+        }
+        else if(Solver.engine == Dijkstra.BIDIRECTIONAL)
+        {
+            for(int i = 0; i < targets.length; i++)
+            {
+                paths[i] = Dijkstra.distance(Solver.s, targets[i], graph,
+                        Solver.engine);
+            }
+        }
+        else
+        {
+            paths = Dijkstra.distances(Solver.s, targets, graph);
+        }
 
-        /*for(int i = 0; i < n; i++)
+        System.out.println("The lengths of the shortest paths from vertex " +
+                Solver.s + " to vertices 7, 37, 59, 82, 99, 115, 133, 165, " +
+                "188, 197 are:");
+        for(int i = 0; i < paths.length; i++)
         {
             System.out.print(paths[i]);
-            System.out.print((i != n - 1)? ", " : ".");
-        }*/
+            System.out.print((i != paths.length - 1)? ", " : ".");
+        }
     }
 
     /**
-     * Reads the lines received from standard input and arranges them in a
-     * list.
+     * Reads the file given in the arguments and gets a graph from it. The
+     * file is either a text file with the edges leaving each vertex or a
+     * binary one written by GraphFile.
      * @param args Array of String with the filepath of the file to read.
-     * @return A list of lines with the data for the problem.
-     * @throws FileNotFoundException If the file couldn't be found.
+     * @return Graph described in the file, null if no file was given.
+     * @throws IOException If the file couldn't be read.
      */
-    private static List<String> readLines(String[] args)
-            throws FileNotFoundException
+    private static Graph readGraph(String[] args) throws IOException
     {
-        List<String> lines = new ArrayList<String>();
         String filename = null;
 
         // get the file name
@@ -89,6 +93,14 @@ public class Solver
             {
                 filename = arg.substring(6);
             }
+            else if(arg.equals("-engine=dial"))
+            {
+                Solver.engine = Dijkstra.DIAL;
+            }
+            else if(arg.equals("-engine=bidirectional"))
+            {
+                Solver.engine = Dijkstra.BIDIRECTIONAL;
+            }
         }
 
         if(filename == null)
@@ -96,33 +108,18 @@ public class Solver
             return null;
         }
 
-        // Reads the lines out of the file
-        FileReader fileReader = new FileReader(filename);
-        BufferedReader input = new BufferedReader(fileReader);
-        String line = null;
-        try
-        {
-            while((line = input.readLine()) != null)
-            {
-                lines.add(line);
-            }
-        }
-        catch (IOException e)
-        {
-            e.printStackTrace();
-        }
         // Gets the source vertex from the second argument, throws exception
         // if invalid or not found
-        try
-        {
-            Solver.s = Integer.parseInt(args[1]);
-        }
-        catch(NumberFormatException nfe)
+        Solver.s = Integer.parseInt(args[1]);
+
+        // Binary graph files written by GraphFile are mapped instead of parsed
+        if(GraphFile.isGraphFile(filename))
         {
-            throw nfe;
+            return GraphFile.read(filename);
         }
-        // Returns the lines read
-        return lines;
+
+        // Parses the text file straight into the arrays of the graph
+        return AdjacencyListReader.read(filename);
     }
 
     //-------------------------------------------------------------------------
@@ -132,20 +129,24 @@ public class Solver
     /**
      * Main test method.
      * @param args filepath relative to the file with the representation of a
-     *             directed graph in the form -file=filepath
+     *             directed graph in the form -file=filepath, either a text
+     *             file or a binary one written by GraphFile
      *             Source vertex s as second parameter, s in [1,2,...,n]
+     *             Optionally -engine=dial to use Dial's buckets instead of a
+     *             binary heap, or -engine=bidirectional to search from s
+     *             and from each target at once
      */
     public static void main(String [] args)
     {
-        List<String> lines = null;
+        Graph graph = null;
         try
         {
-            lines = Solver.readLines(args);
+            graph = Solver.readGraph(args);
         }
-        catch (FileNotFoundException e)
+        catch (IOException e)
         {
             e.printStackTrace();
         }
-        Solver.solve(lines);
+        Solver.solve(graph);
     }
 }
@@ -0,0 +1,240 @@
+/**
+ * $Id: KargerContraction.java, v 1.0 17/10/26 23:58 oscarfabra Exp $
+ * {@code KargerContraction} Is a class that runs trials of the random
+ * contraction algorithm on primitive arrays, contracting the edges with a
+ * union-find structure. <br/>
+ *
+ * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
+ * @version 1.0
+ * @since 17/10/26
+ */
+
+import java.util.Random;
+
+/**
+ * Class that runs trials of Karger's random contraction algorithm without
+ * changing the graph. Contracting edges in a uniformly random order until
+ * two super-vertices remain is the same as running Kruskal's algorithm on
+ * random weights and stopping one edge before the spanning tree is done, so
+ * each trial shuffles the edges and unions the endpoints of each one in a
+ * union-find structure with path compression and union by rank. Edges whose
+ * endpoints are already in the same super-vertex are the self-loops that
+ * Graph.removeSelfLoops would have removed, and are skipped. The shuffle is
+ * done lazily, one position per edge looked at, so a trial costs O(n) to
+ * reset, O(k * alpha(n)) for the k edges it looks at, and O(m * alpha(n))
+ * to count the crossing edges, near-linear in m.
+ * @see MinCut
+ * @see Graph
+ */
+public class KargerContraction
+{
+    //-------------------------------------------------------------------------
+    // ATTRIBUTES
+    //-------------------------------------------------------------------------
+
+    // Number of vertices n
+    private final int n;
+
+    // Ids of the endpoints of each edge, the edge at position i joins tails[i]
+    // and heads[i]. Their order is shuffled by each trial
+    private final int [] tails;
+    private final int [] heads;
+
+    // Parent of each vertex by id in the union-find forest, itself if it's
+    // the representative of its super-vertex
+    private final int [] parent;
+
+    // Upper bound of the height of the tree under each representative
+    private final byte [] rank;
+
+    // Source of the random order of the edges
+    private final Random random;
+
+    // Whether each vertex by id was on the side of vertex 1 in the smallest
+    // cut found so far
+    private final boolean [] minCutSides;
+
+    // Number of crossing edges of the smallest cut found so far, -1 if no
+    // trial has been run
+    private int minCut;
+
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+
+    /**
+     * Copies the edges of the given graph into primitive arrays.
+     * <b>Pre: </b> No vertex of the graph has been merged yet, so the ids of
+     * its vertices are [1...n].
+     * @param graph Graph to find min cuts for.
+     * @param seed Seed of the random order of the edges.
+     */
+    public KargerContraction(Graph graph, long seed)
+    {
+        int m = graph.getM();
+        this.n = graph.getN();
+        this.tails = new int[m];
+        this.heads = new int[m];
+        for(int i = 0; i < m; i++)
+        {
+            Edge edge = graph.getEdgeByIndex(i);
+            this.tails[i] = edge.getStart();
+            this.heads[i] = edge.getEnd();
+        }
+        this.parent = new int[this.n + 1];
+        this.rank = new byte[this.n + 1];
+        this.random = new Random(seed);
+        this.minCutSides = new boolean[this.n + 1];
+        this.minCut = -1;
+    }
+
+    //-------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Runs one trial of the random contraction algorithm, keeping the cut
+     * found if it is the smallest so far.
+     * <b>Pre: </b> The graph is connected and n >= 2.
+     * @return Number of crossing edges of the cut found.
+     */
+    public int trial()
+    {
+        int [] tails = this.tails;
+        int [] heads = this.heads;
+        int m = tails.length;
+        for(int v = 1; v <= this.n; v++)
+        {
+            this.parent[v] = v;
+            this.rank[v] = 0;
+        }
+
+        // Contracts the edges in random order, Fisher-Yates shuffling just
+        // the positions looked at, until two super-vertices remain
+        int components = this.n;
+        for(int i = 0; components > 2 && i < m; i++)
+        {
+            int j = i + this.random.nextInt(m - i);
+            int tail = tails[j];
+            int head = heads[j];
+            tails[j] = tails[i];
+            heads[j] = heads[i];
+            tails[i] = tail;
+            heads[i] = head;
+            if(this.union(tail, head))
+            {
+                components--;
+            }
+        }
+
+        // Counts the edges between the two super-vertices
+        int cut = 0;
+        for(int i = 0; i < m; i++)
+        {
+            if(this.find(tails[i]) != this.find(heads[i]))
+            {
+                cut++;
+            }
+        }
+        if(this.minCut < 0 || cut < this.minCut)
+        {
+            this.minCut = cut;
+            int side = this.find(1);
+            for(int v = 1; v <= this.n; v++)
+            {
+                this.minCutSides[v] = this.find(v) == side;
+            }
+        }
+        return cut;
+    }
+
+    /**
+     * Gets the number of crossing edges of the smallest cut found so far.
+     * @return Size of the min cut found, -1 if no trial has been run.
+     */
+    public int getMinCut()
+    {
+        return this.minCut;
+    }
+
+    /**
+     * Returns the smallest cut found so far to print in standard output, in
+     * the same format as Graph.toString, with the side of vertex 1 as group
+     * A.
+     * <b>Pre: </b> A trial has been run.
+     * @return A String representation of the min cut found.
+     */
+    public String toString()
+    {
+        StringBuffer a = new StringBuffer("A = {");
+        StringBuffer b = new StringBuffer("B = {");
+        for(int v = 1; v <= this.n; v++)
+        {
+            StringBuffer group = this.minCutSides[v] ? a : b;
+            if(group.length() > 5)
+            {
+                group.append(", ");
+            }
+            group.append(v);
+        }
+        return a.append("}\n").toString() + b.append("}\n").toString();
+    }
+
+    //-------------------------------------------------------------------------
+    // PRIVATE HELPER METHODS
+    //-------------------------------------------------------------------------
+
+    /**
+     * Finds the representative of the super-vertex of the vertex with the
+     * given id, pointing every vertex on the way straight to it.
+     * @param vId Id of the vertex.
+     * @return Id of the representative of its super-vertex.
+     */
+    private int find(int vId)
+    {
+        int [] parent = this.parent;
+        int root = vId;
+        while(parent[root] != root)
+        {
+            root = parent[root];
+        }
+        while(parent[vId] != root)
+        {
+            int next = parent[vId];
+            parent[vId] = root;
+            vId = next;
+        }
+        return root;
+    }
+
+    /**
+     * Merges the super-vertices of the vertices with the given ids, hanging
+     * the shorter tree under the taller one.
+     * @param uId Id of a vertex.
+     * @param vId Id of a vertex.
+     * @return Whether they were different super-vertices, false if the edge
+     *         between them is a self-loop.
+     */
+    private boolean union(int uId, int vId)
+    {
+        int u = this.find(uId);
+        int v = this.find(vId);
+        if(u == v)
+        {
+            return false;
+        }
+        if(this.rank[u] < this.rank[v])
+        {
+            this.parent[u] = v;
+        }
+        else
+        {
+            this.parent[v] = u;
+            if(this.rank[u] == this.rank[v])
+            {
+                this.rank[u]++;
+            }
+        }
+        return true;
+    }
+}
@@ -4,7 +4,7 @@
  * graph.
  *
  * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
- * @version 1.0
+ * @version 1.1
  * @since 3/06/14
  */
 
@@ -63,6 +63,31 @@ public class MinCut
         return minCut;
     }
 
+    /**
+     * Determines the minimum cut for this graph running the same number of
+     * trials as findMinCut, but with the union-find contraction engine, which
+     * leaves the graph unchanged and makes each trial near-linear in m
+     * instead of roughly cubic.
+     * <b>Pre: </b> No vertex of the graph has been merged yet.
+     * @param graph Graph to find a min cut for.
+     * @param seed Seed of the random order in which edges are contracted.
+     * @return The engine after running the trials, with the min cut found.
+     * @see KargerContraction
+     */
+    public static KargerContraction findMinCut(Graph graph, long seed)
+    {
+        int n = graph.getN();
+        int N = n*(n - 1) / 2;
+        KargerContraction engine = new KargerContraction(graph, seed);
+        System.out.println("Running the random contraction algorithm " + N +
+                " times...");
+        for(int i = 0; i < N; i++)
+        {
+            engine.trial();
+        }
+        return engine;
+    }
+
     //-------------------------------------------------------------------------
     // PRIVATE HELPER METHODS
     //-------------------------------------------------------------------------
@@ -4,7 +4,7 @@
  * which to find the minimum number of cuts.
  *
  * @author <a href="mailto:oscarfabra@gmail.com">Oscar Fabra</a>
- * @version 1.0
+ * @version 1.1
  * @since 3/06/14
  */
 
@@ -76,6 +76,26 @@ public class Solver
      */
     public static void solve(List<String> lines)
     {
+        Solver.solve(lines, "graph", System.nanoTime());
+    }
+
+    /**
+     * Solves the instance with the given contraction engine and prints the
+     * solution in standard output.
+     * @param lines Input list with the variables for the problem.
+     * @param engine "graph" to merge vertices of the Graph itself, or
+     *               "unionfind" to contract them with KargerContraction.
+     * @param seed Seed of the random order of the edges for "unionfind".
+     * @throws IllegalArgumentException If the engine is neither "graph" nor
+     *                                  "unionfind".
+     */
+    public static void solve(List<String> lines, String engine, long seed)
+    {
+        if(!engine.equals("graph") && !engine.equals("unionfind"))
+        {
+            throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+
         // Converts the given List of String into an Array of List of Integers
         List<Integer>[] adjacencyList = toArrayOfLists(lines);
 
@@ -85,10 +105,22 @@ public class Solver
         // Creates a new Graph and finds a min cut running the random
         // contraction algorithm a large number of times.
         Graph graph = new Graph(V, adjacencyList);
-        int minCut = MinCut.findMinCut(graph);
+        int minCut;
+        String cut;
+        if(engine.equals("unionfind"))
+        {
+            KargerContraction contraction = MinCut.findMinCut(graph, seed);
+            minCut = contraction.getMinCut();
+            cut = contraction.toString();
+        }
+        else
+        {
+            minCut = MinCut.findMinCut(graph);
+            cut = graph.toString();
+        }
 
         System.out.println("A min cut found from the given graph: ");
-        System.out.print(graph.toString());
+        System.out.print(cut);
 
         System.out.println("The number of crossing edges is: " + minCut);
     }
@@ -131,10 +163,33 @@ public class Solver
     /**
      * Main test method.
      * @param args filepath relative to the file with the representation of a
-     *             simple undirected graph in the form -file=filepath
+     *             simple undirected graph in the form -file=filepath,
+     *             optionally the contraction engine in the form
+     *             -engine=graph|unionfind (graph by default) and the seed of
+     *             the union-find engine in the form -seed=number
      */
     public static void main(String [] args)
     {
+        String engine = "graph";
+        long seed = System.nanoTime();
+        for(String arg : args)
+        {
+            if(arg.startsWith("-engine="))
+            {
+                engine = arg.substring(8);
+            }
+            else if(arg.startsWith("-seed="))
+            {
+                seed = Long.parseLong(arg.substring(6));
+            }
+        }
+        if(!engine.equals("graph") && !engine.equals("unionfind"))
+        {
+            System.out.println("Usage: Solver -file=filepath " +
+                    "[-engine=graph|unionfind] [-seed=number]");
+            return;
+        }
+
         List<String> lines = null;
         try
         {
@@ -144,6 +199,6 @@ public class Solver
         {
             e.printStackTrace();
         }
-        Solver.solve(lines);
+        Solver.solve(lines, engine, seed);
     }
 }